@@ -0,0 +1,71 @@
+package benchmarks;
+
+import javafx.collections.ObservableList;
+import model.Inventory;
+import model.Part;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the Inventory operations that do not change it: lookupPart by id, lookupPart by name and getTotalPartValue.
+ * Each operation is measured as an average time against an inventory of size parts and size / 10 products.
+ *
+ * @author José L Dávila Montalvo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class InventoryReadBenchmark {
+
+    private static final int PICKS = 1 << 12;
+
+    /**
+     * Number of parts in the Inventory.
+     */
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private int[] partIds;
+    private String[] queries;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void fill(){
+        SyntheticInventory.fill(size, size / 10);
+        partIds = SyntheticInventory.picks(PICKS, size, 1);
+        for(int i = 0; i < PICKS; i++){
+            partIds[i] += 1;
+        }
+        queries = SyntheticInventory.queries(PICKS);
+    }
+
+    @Benchmark
+    public Part lookupPartById(){
+        return Inventory.lookupPart(partIds[cursor++ & (PICKS - 1)]);
+    }
+
+    @Benchmark
+    public ObservableList<Part> lookupPartByName(){
+        return Inventory.lookupPart(queries[cursor++ & (PICKS - 1)]);
+    }
+
+    @Benchmark
+    public long totalPartValue(){
+        return Inventory.getTotalPartValue();
+    }
+}
@@ -0,0 +1,126 @@
+package benchmarks;
+
+import model.Inventory;
+import model.Money;
+import model.Part;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for addPart, deletePart and updateInhousePart. They change the Inventory, so each iteration runs a batch of BATCH
+ * operations as a single shot and the Inventory is put back to size parts between iterations. Scores are the time of a whole batch,
+ * and every benchmark runs exactly BATCH operations so their scores can be compared.
+ *
+ * @author José L Dávila Montalvo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, batchSize = InventoryWriteBenchmark.BATCH)
+@Measurement(iterations = 20, batchSize = InventoryWriteBenchmark.BATCH)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class InventoryWriteBenchmark {
+
+    /**
+     * Operations per iteration. Parts used by a product cannot be deleted, and about a third of the parts of the smallest inventory
+     * are used, so a batch must stay well below two thirds of size.
+     */
+    static final int BATCH = 500;
+
+    /**
+     * Number of parts in the Inventory.
+     */
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private final List<Part> added = new ArrayList<>(BATCH);
+    private final List<Part> deleted = new ArrayList<>(BATCH);
+    private final List<Part> toDelete = new ArrayList<>(BATCH);
+    private int[] inHouseIds;
+    private String[] queries;
+    private SplittableRandom random;
+    private int iteration;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void fill(){
+        SyntheticInventory.fill(size, size / 10);
+        random = new SplittableRandom(SyntheticInventory.SEED + 3);
+        inHouseIds = SyntheticInventory.picks(BATCH, size / 2, 2);
+        for(int i = 0; i < BATCH; i++){
+            inHouseIds[i] = inHouseIds[i] * 2 + 1;
+        }
+        queries = SyntheticInventory.queries(BATCH);
+    }
+
+    @Setup(Level.Iteration)
+    public void pickParts(){
+        // BATCH distinct parts that no product uses, shuffled in an order that is the same for every run
+        List<Part> unused = new ArrayList<>();
+        for(int id = 1; id < Inventory.getPartIds().peek(); id++){
+            Part part = Inventory.lookupPart(id);
+            if(part != null && Inventory.whereUsed(id).isEmpty()){
+                unused.add(part);
+            }
+        }
+        if(unused.size() < BATCH){
+            throw new IllegalStateException("Only " + unused.size() + " parts can be deleted, " + BATCH + " are needed");
+        }
+        Collections.shuffle(unused, new Random(SyntheticInventory.SEED + 100 + iteration++));
+        toDelete.clear();
+        toDelete.addAll(unused.subList(0, BATCH));
+        cursor = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void restore(){
+        for(Part part: added){
+            Inventory.deletePart(part);
+        }
+        added.clear();
+        for(Part part: deleted){
+            Inventory.addPart(part);
+        }
+        deleted.clear();
+    }
+
+    @Benchmark
+    public void addPart(){
+        Part part = SyntheticInventory.part(Inventory.incrementPartId(), random);
+        Inventory.addPart(part);
+        added.add(part);
+    }
+
+    @Benchmark
+    public void deletePart(){
+        Part part = toDelete.get(deleted.size());
+        Inventory.deletePart(part);
+        deleted.add(part);
+    }
+
+    @Benchmark
+    public Part updateInhousePart(){
+        int pick = cursor++;
+        Part part = Inventory.lookupPart(inHouseIds[pick]);
+        Inventory.updateInhousePart(Inventory.getPartIndex(part), part, queries[pick] + " " + pick, Money.CENTS * (1 + pick), pick % 100, 0, 100, pick);
+        return part;
+    }
+}
@@ -0,0 +1,108 @@
+package benchmarks;
+
+import model.Inventory;
+import model.Part;
+import model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for Product.addToExistingProduct and Product.deleteAssociatedPart against an inventory of size parts and products.
+ * Each iteration adds or removes a batch of BATCH associations as a single shot, the associations are put back between iterations.
+ * Scores are the time of a whole batch.
+ *
+ * @author José L Dávila Montalvo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, batchSize = ProductBenchmark.BATCH)
+@Measurement(iterations = 20, batchSize = ProductBenchmark.BATCH)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductBenchmark {
+
+    /**
+     * Operations per iteration.
+     */
+    static final int BATCH = 1000;
+
+    /**
+     * Number of parts and of products in the Inventory.
+     */
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private final Product[] products = new Product[BATCH];
+    private final Part[] parts = new Part[BATCH];
+    private final Product[] changedProducts = new Product[BATCH];
+    private final Part[] changedParts = new Part[BATCH];
+    private int next;
+    private int added;
+    private int removed;
+    private int iteration;
+
+    @Setup(Level.Trial)
+    public void fill(){
+        SyntheticInventory.fill(size, size);
+    }
+
+    @Setup(Level.Iteration)
+    public void pickPairs(){
+        int[] productPicks = SyntheticInventory.picks(BATCH, size, 200 + iteration);
+        int[] partPicks = SyntheticInventory.picks(BATCH, size, 300 + iteration);
+        iteration++;
+        for(int i = 0; i < BATCH; i++){
+            // fill gives the parts and products the ids 1 to size
+            products[i] = Inventory.lookupProduct(productPicks[i] + 1);
+            parts[i] = Inventory.lookupPart(partPicks[i] + 1);
+        }
+        next = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void restore(){
+        // associations added by addToExistingProduct are removed and the ones removed by deleteAssociatedPart are added back
+        for(int i = 0; i < added; i++){
+            Product.deleteAssociatedPart(changedProducts[i], changedParts[i]);
+        }
+        for(int i = 0; i < removed; i++){
+            Product.addToExistingProduct(changedProducts[i], changedParts[i]);
+        }
+        added = 0;
+        removed = 0;
+    }
+
+    @Benchmark
+    public void addToExistingProduct(){
+        Product product = products[next];
+        Part part = parts[next++];
+        Product.addToExistingProduct(product, part);
+        changedProducts[added] = product;
+        changedParts[added++] = part;
+    }
+
+    @Benchmark
+    public boolean deleteAssociatedPart(){
+        Product product = products[next++];
+        if(product.getAssociatedParts().isEmpty()){
+            return false;
+        }
+        Part part = product.getAssociatedParts().get(0);
+        changedProducts[removed] = product;
+        changedParts[removed++] = part;
+        return Product.deleteAssociatedPart(product, part);
+    }
+}
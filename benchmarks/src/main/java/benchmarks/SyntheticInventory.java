@@ -0,0 +1,116 @@
+package benchmarks;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.InHouse;
+import model.Inventory;
+import model.OutSourced;
+import model.Part;
+import model.Product;
+
+import java.util.SplittableRandom;
+
+/**
+ * SyntheticInventory class that fills the Inventory with generated parts and products for the benchmarks.
+ * The data only depends on the seed and the sizes, so every run of a benchmark works on exactly the same inventory.
+ * Parts with an odd id are Inhouse and parts with an even id are Outsourced. Every product has four associated parts.
+ *
+ * @author José L Dávila Montalvo
+ */
+final class SyntheticInventory {
+
+    /**
+     * Seed used by every benchmark.
+     */
+    static final long SEED = 482;
+
+    private static final String[] WORDS = {
+            "bolt", "nut", "washer", "gear", "spring", "chain", "brake", "wheel", "pedal", "seat",
+            "frame", "fork", "crank", "spoke", "tire", "tube", "cable", "lever", "bell", "light"
+    };
+
+    private static final String[] COMPANIES = {"Acme", "Globex", "Initech", "Umbrella", "Hooli"};
+
+    private SyntheticInventory(){
+    }
+
+    /**
+     * Method adds parts and products to the Inventory, which must be empty.
+     *
+     * @param parts Number of parts.
+     * @param products Number of products.
+     */
+    static void fill(int parts, int products){
+        SplittableRandom random = new SplittableRandom(SEED);
+        Inventory.batchUpdate(() -> {
+            for(int i = 0; i < parts; i++){
+                Inventory.addPart(part(Inventory.incrementPartId(), random));
+            }
+            for(int i = 0; i < products; i++){
+                ObservableList<Part> associated = FXCollections.observableArrayList();
+                for(int p = 0; p < 4; p++){
+                    associated.add(Inventory.lookupPart(1 + random.nextInt(parts)));
+                }
+                Inventory.addProduct(new Product(Inventory.incrementProdId(), name(random), price(random), 5, 1, 10, associated));
+            }
+        });
+    }
+
+    /**
+     * Method creates a part that is not in the Inventory.
+     *
+     * @param id Id of the part, odd ids create Inhouse parts.
+     * @param random Source of the generated values.
+     * @return a new part.
+     */
+    static Part part(int id, SplittableRandom random){
+        String name = name(random);
+        long price = price(random);
+        int stock = 1 + random.nextInt(100);
+        if(id % 2 == 1){
+            return new InHouse(id, name, price, stock, 0, 100, random.nextInt(1000));
+        }
+        return new OutSourced(id, name, price, stock, 0, 100, COMPANIES[random.nextInt(COMPANIES.length)]);
+    }
+
+    /**
+     * Method creates the search text used by the name search benchmarks, a whole word or the start of one.
+     *
+     * @param count Number of search texts.
+     * @return the search texts.
+     */
+    static String[] queries(int count){
+        SplittableRandom random = new SplittableRandom(SEED + 1);
+        String[] queries = new String[count];
+        for(int i = 0; i < count; i++){
+            String word = WORDS[random.nextInt(WORDS.length)];
+            queries[i] = random.nextBoolean() ? word : word.substring(0, 3);
+        }
+        return queries;
+    }
+
+    /**
+     * Method picks values between 0 and bound in a fixed random order.
+     *
+     * @param count Number of values, a power of two when a benchmark cycles through them with a mask.
+     * @param bound Upper bound, exclusive.
+     * @param salt Changes the order between benchmarks.
+     * @return the values.
+     */
+    static int[] picks(int count, int bound, long salt){
+        SplittableRandom random = new SplittableRandom(SEED + salt);
+        int[] picks = new int[count];
+        for(int i = 0; i < count; i++){
+            picks[i] = random.nextInt(bound);
+        }
+        return picks;
+    }
+
+    private static String name(SplittableRandom random){
+        return WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(10_000);
+    }
+
+    private static long price(SplittableRandom random){
+        return random.nextInt(100_000);
+    }
+}
@@ -0,0 +1,98 @@
+package model;
+
+import javafx.collections.FXCollections;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests that the InventoryLog recovers the inventory after the program stopped in the middle of writing a record.
+ * Every test starts and ends with an empty Inventory, a restart is simulated by emptying the Inventory and opening the log again.
+ *
+ * @author José L Dávila Montalvo
+ */
+class InventoryLogRecoveryTest {
+
+    @TempDir
+    Path data;
+
+    @AfterEach
+    void emptyInventory(){
+        for(Product product: new ArrayList<>(Inventory.productValues())){
+            Inventory.deleteProduct(product);
+        }
+        for(Part part: new ArrayList<>(Inventory.partValues())){
+            Inventory.deletePart(part);
+        }
+    }
+
+    @Test
+    void tornLastRecordKeepsThePreviousRecord() throws IOException {
+        InventoryLog log = InventoryLog.open(data);
+        Inventory.addPart(new InHouse(1, "Turbo", 1999, 5, 0, 10, 3));
+        Inventory.addProduct(new Product(1, "Engine", 5000, 1, 0, 10, FXCollections.observableArrayList(Inventory.lookupPart(1))));
+        log.sync();
+        Inventory.updateInhousePart(0, Inventory.lookupPart(1), "Turbo charger", 1999, 5, 0, 10, 3);
+        log.close();
+
+        // the program stopped in the middle of the last record
+        Path logFile = data.resolve("inventory.log");
+        try(FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)){
+            channel.truncate(channel.size() - 12);
+        }
+
+        restart();
+        Part part = Inventory.lookupPart(1);
+        assertNotNull(part);
+        assertEquals("Turbo", part.getName());
+        assertEquals(5, part.getStock());
+        Product product = Inventory.lookupProduct(1);
+        assertNotNull(product);
+        assertEquals(1, product.getAssociatedParts().size());
+        assertSame(part, product.getAssociatedParts().get(0));
+
+        // the recovered inventory is in the new snapshot, so it is still there after the next restart
+        restart();
+        assertEquals("Turbo", Inventory.lookupPart(1).getName());
+        assertNotNull(Inventory.lookupProduct(1));
+    }
+
+    @Test
+    void damagedSnapshotIsReportedAndKept() throws IOException {
+        InventoryLog log = InventoryLog.open(data);
+        Inventory.addPart(new OutSourced(1, "Gasket", 250, 40, 10, 100, "Acme"));
+        Inventory.addPart(new OutSourced(2, "Valve", 899, 12, 1, 50, "Acme"));
+        log.close();
+        restart();
+
+        Path snapshot = data.resolve("inventory.snapshot");
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshot, bytes);
+
+        emptyInventory();
+        assertThrows(IOException.class, () -> InventoryLog.open(data));
+        assertArrayEquals(bytes, Files.readAllBytes(snapshot));
+    }
+
+    /**
+     * Method empties the Inventory and loads it again from the saved files, like a new start of the program.
+     */
+    private void restart() throws IOException {
+        emptyInventory();
+        InventoryLog.open(data).close();
+    }
+}
@@ -1,19 +1,17 @@
 package controller;
 
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 import javafx.collections.transformation.SortedList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.stage.Stage;
+import model.InputValidator;
 import model.Inventory;
 import model.Part;
-import model.Product;
 
 import java.io.IOException;
 import java.net.URL;
@@ -24,7 +22,7 @@ import java.util.ResourceBundle;
  *
  * @author José L Dávila Montalvo
  */
-public class AddProduct implements Initializable {
+public class AddProduct implements Initializable, Resettable {
 
     /**
      * Table that shows all the available parts.
@@ -122,6 +120,16 @@ public class AddProduct implements Initializable {
     @FXML
     private TextField addProdSearch;
 
+    /**
+     * Validator for the fields of the screen.
+     */
+    private final InputValidator input = new InputValidator();
+
+    /**
+     * Parts associated with the product being added. Each screen keeps its own list until the product is saved.
+     */
+    private final ObservableList<Part> associatedParts = FXCollections.observableArrayList();
+
     /**
      * Initializes the controller. Contains logic to set the tableview and search the tableview.
      * Uses a filtered list class and a predicate to filter the list of part objects and then displays the found parts in the tableview.
@@ -142,47 +150,19 @@ public class AddProduct implements Initializable {
         assoInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
         assoPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
 
-        // Used filtered list class to wrap the parts list returned from the Inventory class.
-        FilteredList<Part> partFilteredList = new FilteredList<>(Inventory.getAllParts(), b -> true);
-
-        // The logic inside the predicate filters the content of the tableview using ID or part name.
-        addProdSearch.textProperty().addListener((observable, oldValue, newValue) -> {
-            partFilteredList.setPredicate(part -> {
-
-                // shows all the parts available
-                if (newValue == null || newValue.isEmpty()) {
-                    return true;
-                }
-
-                try {
-                    // uses the value entered in the searchfield with the lookupPart method. If the returned part object matches any of the part objects in the filtered list,
-                    // it will display the part object that is a match.
-                    if (Inventory.lookupPart(Integer.parseInt(newValue)).getId() == part.getId()) {
-                        return true;
-                    }
-                    //error handler when a string is entered or when no part is found
-                } catch (NumberFormatException | NullPointerException e) {
-                    return false;
-                } finally {
-                    try{
-                        String lowerNewValue = newValue.toLowerCase();
-                        //searches for a part name entered
-                        if (Inventory.lookupPart(lowerNewValue).contains(part)){
-                            return true;
-                        }
-                        //error handler when no part is found
-                    }catch (NullPointerException e){
-                        return false;
-                    }
-                }
-                return false;
-            });
-        });
+        // the inventory lists are only used on the JavaFX application thread, also when the screen is preloaded
+        SceneCache.onApplicationThread(() -> {
+            // Used filtered list class to wrap the parts list returned from the Inventory class.
+            FilteredList<Part> partFilteredList = new FilteredList<>(Inventory.getAllParts(), b -> true);
 
-        // wraps the filtered list converting it to a sorted list. Tableview is then updated in realtime based on the entered values in the searchfield.
-        SortedList<Part> sortTest = new SortedList<>(partFilteredList);
-        sortTest.comparatorProperty().bind(prodPartsTable.comparatorProperty());
-        prodPartsTable.setItems(sortTest);
+            // The search is resolved once per change in the searchfield, the predicate only checks for matching IDs.
+            SearchFilter.bindParts(addProdSearch, partFilteredList);
+
+            // wraps the filtered list converting it to a sorted list. Tableview is then updated in realtime based on the entered values in the searchfield.
+            SortedList<Part> sortTest = new SortedList<>(partFilteredList);
+            sortTest.comparatorProperty().bind(prodPartsTable.comparatorProperty());
+            prodPartsTable.setItems(sortTest);
+        });
 
     }
 
@@ -195,8 +175,8 @@ public class AddProduct implements Initializable {
             Part part = prodPartsTable.getSelectionModel().getSelectedItem();
 
             if (part != null){
-                Product.addAssociatedPart(part);
-                assoPartTable.setItems(Product.getAllAssociatedParts());
+                associatedParts.add(part);
+                assoPartTable.setItems(associatedParts);
             }else{
                 throw new NullPointerException();
             }
@@ -219,7 +199,12 @@ public class AddProduct implements Initializable {
 
         try{
             Part ascPart = assoPartTable.getSelectionModel().getSelectedItem();
-            Product.deleteAssociatedPart(ascPart);
+
+            if (ascPart != null){
+                associatedParts.remove(ascPart);
+            }else{
+                throw new NullPointerException();
+            }
 
             //error handler in case the button is pressed and no part is selected.
         }catch(NullPointerException e){
@@ -240,67 +225,23 @@ public class AddProduct implements Initializable {
      */
     public void saveProduct(ActionEvent actionEvent) throws IOException {
 
-        // automatically generates an ID for the product
-        int id = Inventory.incrementProdId();
-
         try {
 
-            int stock;
-            Double price;
-            int min;
-            int max;
-            String name;
+            // every field is parsed once by the validator, which gives the message for the first field that is not valid
+            InputValidator.require(input.checkProduct(prodNameTxt.getText(), prodPriceTxt.getText(), prodInvTxt.getText(),
+                    prodMinTxt.getText(), prodMaxTxt.getText()));
 
-            // if-else statements validate user input and throw detailed exceptions specific to the invalid entry.
-            if(prodNameTxt.getText().isEmpty()){
-                throw new NullPointerException("Please enter a product name in the Name field");
-            }else{
-                name = prodNameTxt.getText();
-            }
-
-            // if-else statements validate user input and throw detailed exceptions specific to the invalid entry.
-            if (prodPriceTxt.getText().matches(".*[^0-9.].*") || prodPriceTxt.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Price/Cost field");
-            } else {
-                price = Double.parseDouble(prodPriceTxt.getText());
-            }
-
-            if (prodMaxTxt.getText().matches(".*\\D.*") || prodMaxTxt.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Max field");
-            } else {
-                max = Integer.parseInt(prodMaxTxt.getText());
-            }
-
-            if (prodMinTxt.getText().matches(".*\\D.*") || prodMinTxt.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Min field");
-            }else if (Integer.parseInt(prodMinTxt.getText()) > max){
-                throw new IllegalArgumentException("Min cannot be greater than max");
-            } else {
-                min = Integer.parseInt(prodMinTxt.getText());
-            }
-
-            // second else if statement validates correct inventory number
-            if (prodInvTxt.getText().matches(".*\\D.*") || prodInvTxt.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Inv field");
-            }else if(Integer.parseInt(prodInvTxt.getText()) > max || Integer.parseInt(prodInvTxt.getText()) < min){
-                throw new IllegalArgumentException("Inventory number entered is outside the min/max range");
-            } else {
-                stock = Integer.parseInt(prodInvTxt.getText());
-            }
+            // automatically generates an ID for the product once the input is valid, so invalid input does not use up an ID
+            int id = Inventory.incrementProdId();
 
             // product is added
-            Inventory.addProduct(new Product(id, name, price, stock, min, max, Product.getAllAssociatedParts()));
+            Inventory.addProduct(input.newProduct(id, associatedParts));
 
             // clears associated parts list for next product object
-            Product.clearAssociatedParts();
+            associatedParts.clear();
 
             // takes user back to main screen.
-            Parent root = FXMLLoader.load(getClass().getResource("/view/Main_Screen.fxml"));
-            Stage stage = (Stage)((Button)actionEvent.getSource()).getScene().getWindow();
-            Scene scene = new Scene(root,1070,400);
-            stage.setTitle("");
-            stage.setScene(scene);
-            stage.show();
+            SceneCache.show(actionEvent, SceneCache.Screen.MAIN);
 
         } catch(NullPointerException | IllegalArgumentException e){
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -313,6 +254,21 @@ public class AddProduct implements Initializable {
         }
     }
 
+    /**
+     * Clears the textfields, the searchfield and the associated parts before another product is added.
+     */
+    @Override
+    public void reset() {
+        prodNameTxt.clear();
+        prodInvTxt.clear();
+        prodPriceTxt.clear();
+        prodMaxTxt.clear();
+        prodMinTxt.clear();
+        addProdSearch.clear();
+        prodPartsTable.getSelectionModel().clearSelection();
+        associatedParts.clear();
+    }
+
     /**
      * When the cancel button is pressed, nothing is saved and the user is taken back to the main screen.
      *
@@ -320,11 +276,6 @@ public class AddProduct implements Initializable {
      * @throws IOException Error loading the view
      */
     public void productCancel(ActionEvent actionEvent) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource("/view/Main_Screen.fxml"));
-        Stage stage = (Stage)((Button)actionEvent.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root,1070,400);
-        stage.setTitle("");
-        stage.setScene(scene);
-        stage.show();
+        SceneCache.show(actionEvent, SceneCache.Screen.MAIN);
     }
 }
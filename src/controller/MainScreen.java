@@ -1,18 +1,15 @@
 package controller;
 
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 import javafx.collections.transformation.SortedList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.scene.layout.Region;
-import javafx.stage.Stage;
 import model.*;
 
 import java.io.IOException;
@@ -30,7 +27,7 @@ import java.util.ResourceBundle;
  *
  * @author José L Dávila Montalvo
  */
-public class MainScreen implements Initializable {
+public class MainScreen implements Initializable, Resettable {
 
     /**
      * Table that shows all the available products.
@@ -56,6 +53,12 @@ public class MainScreen implements Initializable {
     @FXML
     private TableColumn<Product, Integer> prodInvCol;
 
+    /**
+     * buildable quantity column for the product table.
+     */
+    @FXML
+    private TableColumn<Product, Integer> prodBuildCol;
+
     /**
      * product price column for the product table.
      */
@@ -107,6 +110,8 @@ public class MainScreen implements Initializable {
     /**
      * Initializes the controller. Contains logic to set the tableview and search the tableview.
      * Uses a filtered list class and a predicate to filter the list of part objects and then displays the found parts in the tableview.
+     * When the program was started with a part store, the parts tableview pages through the store in record order instead and its
+     * columns cannot be sorted.
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
@@ -121,75 +126,50 @@ public class MainScreen implements Initializable {
         prodIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
         prodNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
         prodInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
+        prodBuildCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(Inventory.getBuildableQuantity(cell.getValue())));
         prodPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
 
-        // Used filtered list class to wrap the parts list returned from the Inventory class.
-        FilteredList<Part> filterTest = new FilteredList<>(Inventory.getAllParts(), b -> true);
-
-        // The logic inside the predicate filters the content of the tableview using ID or part name.
-        partsSearch.textProperty().addListener((observable, oldValue, newValue) -> {
-            filterTest.setPredicate(part -> {
-                if (newValue == null || newValue.isEmpty()) {
-                    return true;
-                }
-
-                try {
-                    if (Inventory.lookupPart(Integer.parseInt(newValue)).getId() == part.getId()) {
-                        return true;
-                    }
-                } catch (NumberFormatException | NullPointerException e) {
-                    return false;
-                } finally {
-                    try{
-                        String lowerNewValue = newValue.toLowerCase();
-                        if (Inventory.lookupPart(lowerNewValue).contains(part)){
-                            return true;
-                        }
-                    }catch (NullPointerException e){
-                        return false;
-                    }
-                }
-                return false;
-            });
-        });
-        SortedList<Part> sortTest = new SortedList<>(filterTest);
-        sortTest.comparatorProperty().bind(partsTableView.comparatorProperty());
-        partsTableView.setItems(sortTest);
+        MappedPartStore partStore = Inventory.getPartStore();
+        if(partStore != null){
+            // The table pages through the part store, only the rows being shown are part objects and a change only touches its rows.
+            PagedPartList pagedParts = new PagedPartList(partStore);
+            SearchFilter.bindParts(partsSearch, pagedParts);
+            Inventory.getAllParts().addListener((ListChangeListener<Part>) pagedParts::partsChanged);
+            partsTableView.getColumns().forEach(column -> column.setSortable(false));
+            partsTableView.setItems(pagedParts);
+        }else{
+            // Used filtered list class to wrap the parts list returned from the Inventory class.
+            FilteredList<Part> filterTest = new FilteredList<>(Inventory.getAllParts(), b -> true);
+
+            // The search is resolved once per change in the searchfield, the predicate only checks for matching IDs.
+            SearchFilter.bindParts(partsSearch, filterTest);
+            SortedList<Part> sortTest = new SortedList<>(filterTest);
+            sortTest.comparatorProperty().bind(partsTableView.comparatorProperty());
+            partsTableView.setItems(sortTest);
+        }
 
         // Used filtered list class to wrap the products list returned from the Inventory class.
         FilteredList<Product> prodFilterTest = new FilteredList<>(Inventory.getAllProducts(), b -> true);
 
-        // The logic inside the predicate filters the content of the tableview using ID or part name.
-        productSearch.textProperty().addListener((observable, oldValue, newValue) -> {
-            prodFilterTest.setPredicate(product -> {
-                if (newValue == null || newValue.isEmpty()) {
-                    return true;
-                }
-
-                try {
-                    if (Inventory.lookupProduct(Integer.parseInt(newValue)).getId() == product.getId()) {
-                        return true;
-                    }
-                } catch (NumberFormatException | NullPointerException e) {
-                    return false;
-                } finally {
-                    try{
-                        String lowerNewValue = newValue.toLowerCase();
-                        if (Inventory.lookupProduct(lowerNewValue).contains(product)){
-                            return true;
-                        }
-                    }catch (NullPointerException e){
-                        return false;
-                    }
-                }
-                return false;
-            });
-        });
+        // The search is resolved once per change in the searchfield, the predicate only checks for matching IDs.
+        SearchFilter.bindProducts(productSearch, prodFilterTest);
         SortedList<Product> prodSortTest = new SortedList<>(prodFilterTest);
         prodSortTest.comparatorProperty().bind(prodTableView.comparatorProperty());
         prodTableView.setItems(prodSortTest);
     }
 
+    /**
+     * Clears the searchfields and the selections when the user comes back to the main screen.
+     * The tables stay bound to the Inventory, so they already show every change made on the other screens.
+     */
+    @Override
+    public void reset() {
+        partsSearch.clear();
+        productSearch.clear();
+        partsTableView.getSelectionModel().clearSelection();
+        prodTableView.getSelectionModel().clearSelection();
+    }
+
     /**
      * Takes the user to the add part scene, default is Inhouse.
      *
@@ -197,13 +177,7 @@ public class MainScreen implements Initializable {
      * @throws IOException Error loading the view
      */
     public void partsAddButton(ActionEvent actionEvent) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource("/view/Parts_Screen_InHouse.fxml"));
-        Stage stage = (Stage)((Button)actionEvent.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root,549,653);
-        stage.setTitle("");
-        stage.setScene(scene);
-        stage.show();
-        
+        SceneCache.show(actionEvent, SceneCache.Screen.ADD_IN_HOUSE_PART);
     }
 
     /**
@@ -219,47 +193,33 @@ public class MainScreen implements Initializable {
 
         try{
             // Every attribute of the part, including the part itself, is stored in a variable.
+            // The attributes are read from a copy, so they all come from the same change of the part.
             Part part = partsTableView.getSelectionModel().getSelectedItem();
-            int id = partsTableView.getSelectionModel().getSelectedItem().getId();
-            String name = partsTableView.getSelectionModel().getSelectedItem().getName();
-            int inv = partsTableView.getSelectionModel().getSelectedItem().getStock();
-            Double price = partsTableView.getSelectionModel().getSelectedItem().getPrice();
-            int max = partsTableView.getSelectionModel().getSelectedItem().getMax();
-            int min = partsTableView.getSelectionModel().getSelectedItem().getMin();
+            Part fields = part.copy();
+            int id = fields.getId();
+            String name = fields.getName();
+            int inv = fields.getStock();
+            long price = fields.getPriceCents();
+            int max = fields.getMax();
+            int min = fields.getMin();
 
             // selection structure to check if the part is Inhouse or Outsourced
             if(part instanceof InHouse){
 
-                Stage stage = (Stage)((Button)actionEvent.getSource()).getScene().getWindow();
-                FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/Parts_ScreenMod_InHouse.fxml"));
-                Region root = loader.load();
-
-                Scene scene = new Scene(root);
-                stage.setScene(scene);
-                InHouse mach = (InHouse) partsTableView.getSelectionModel().getSelectedItem();
+                InHouse mach = (InHouse) fields;
                 int machId = mach.getMachineId();
-                PartsScreenModInHouse partsScreenModInHouse = loader.getController();
+                PartsScreenModInHouse partsScreenModInHouse = SceneCache.show(actionEvent, SceneCache.Screen.MODIFY_IN_HOUSE_PART);
                 partsScreenModInHouse.setFields(id,name,inv, price, max, min, machId);
                 partsScreenModInHouse.getPart(part);
 
-                stage.show();
-
             } else{
 
-                Stage stage = (Stage)((Button)actionEvent.getSource()).getScene().getWindow();
-                FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/Parts_ScreenMod_Outsourced.fxml"));
-                Region root = loader.load();
-
-                Scene scene = new Scene(root);
-                stage.setScene(scene);
-                OutSourced thisCompanyName = (OutSourced) partsTableView.getSelectionModel().getSelectedItem();
+                OutSourced thisCompanyName = (OutSourced) fields;
                 String companyName = thisCompanyName.getCompanyName();
 
-                PartsScreenModOutsourced partsScreenModOutsourced = loader.getController();
+                PartsScreenModOutsourced partsScreenModOutsourced = SceneCache.show(actionEvent, SceneCache.Screen.MODIFY_OUTSOURCED_PART);
                 partsScreenModOutsourced.setFields(id,name,inv, price, max, min, companyName);
                 partsScreenModOutsourced.getPart(part);
-
-                stage.show();
             }
         }catch (NullPointerException e){
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -273,7 +233,8 @@ public class MainScreen implements Initializable {
 
     /**
      * Button deletes the selected part.
-     * User is prompted for confirmation before the part is deleted.
+     * User is prompted for confirmation before the part is deleted. If the part is associated with a product, the user will be advised
+     * the part cannot be deleted.
      */
     public void partsDeleteBtn() {
 
@@ -286,7 +247,16 @@ public class MainScreen implements Initializable {
             Optional<ButtonType> result = alert.showAndWait();
             if (result.get() == ButtonType.OK){
                 Part testPart = partsTableView.getSelectionModel().getSelectedItem();
-                Inventory.deletePart(testPart);
+                try{
+                    Inventory.deletePart(testPart);
+                }catch (IllegalStateException e){
+                    Alert alert1 = new Alert(Alert.AlertType.ERROR);
+                    alert1.setTitle("Error");
+                    alert1.setHeaderText("Deletion Error");
+                    alert1.setContentText(e.getMessage());
+
+                    alert1.showAndWait();
+                }
             } else {
                 alert.close();
             }
@@ -308,12 +278,7 @@ public class MainScreen implements Initializable {
      * @throws IOException Error loading the view
      */
     public void prdAddBtn(ActionEvent actionEvent) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource("/view/Add_Product.fxml"));
-        Stage stage = (Stage)((Button)actionEvent.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root,1114,566);
-        stage.setTitle("");
-        stage.setScene(scene);
-        stage.show();
+        SceneCache.show(actionEvent, SceneCache.Screen.ADD_PRODUCT);
     }
 
     /**
@@ -327,27 +292,19 @@ public class MainScreen implements Initializable {
 
         try{
             Product product = prodTableView.getSelectionModel().getSelectedItem();
-            int id = prodTableView.getSelectionModel().getSelectedItem().getId();
-            String name = prodTableView.getSelectionModel().getSelectedItem().getName();
-            int inv = prodTableView.getSelectionModel().getSelectedItem().getStock();
-            Double price = prodTableView.getSelectionModel().getSelectedItem().getPrice();
-            int max = prodTableView.getSelectionModel().getSelectedItem().getMax();
-            int min = prodTableView.getSelectionModel().getSelectedItem().getMin();
-            ObservableList prodList = prodTableView.getSelectionModel().getSelectedItem().getAssociatedParts();
-
-            Stage stage = (Stage)((Button)actionEvent.getSource()).getScene().getWindow();
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/Modify_Product.fxml"));
-            Region root = loader.load();
-
-            ModifyProduct modifyProduct = loader.getController();
+            Product fields = product.copy();
+            int id = fields.getId();
+            String name = fields.getName();
+            int inv = fields.getStock();
+            long price = fields.getPriceCents();
+            int max = fields.getMax();
+            int min = fields.getMin();
+            ObservableList<Part> prodList = fields.getAssociatedParts();
+
+            ModifyProduct modifyProduct = SceneCache.show(actionEvent, SceneCache.Screen.MODIFY_PRODUCT);
             modifyProduct.setFields(id,name,inv, price, max, min, prodList);
             modifyProduct.getProduct(product);
 
-            Scene scene = new Scene(root);
-            stage.setScene(scene);
-
-            stage.show();
-
         }catch (NullPointerException e){
             Alert alert = new Alert(Alert.AlertType.ERROR);
             alert.setTitle("Error");
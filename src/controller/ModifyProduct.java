@@ -1,19 +1,17 @@
 package controller;
 
+import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 import javafx.collections.transformation.SortedList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.scene.layout.Region;
-import javafx.stage.Stage;
+import model.InputValidator;
 import model.Inventory;
+import model.Money;
 import model.Part;
 import model.Product;
 
@@ -27,7 +25,7 @@ import java.util.ResourceBundle;
  *
  * @author José L Dávila Montalvo
  */
-public class ModifyProduct implements Initializable {
+public class ModifyProduct implements Initializable, Resettable {
 
     /**
      * Table that shows all the available parts.
@@ -142,20 +140,21 @@ public class ModifyProduct implements Initializable {
      * @param id product id
      * @param name product name
      * @param inv   product inventory amount
-     * @param price product price
+     * @param price product price in cents
      * @param max product max inventory amount
      * @param min product min inventory amount
-     * @param associatedPart parts associated with product
+     * @param associatedPart parts associated with product, copied into the list of the screen
      */
-    public void setFields(int id, String name, int inv, double price, int max, int min, ObservableList associatedPart){
+    public void setFields(int id, String name, int inv, long price, int max, int min, ObservableList<Part> associatedPart){
 
         prodModId.setText(Integer.toString(id));
         prodModName.setText(name);
         prodModInv.setText(Integer.toString(inv));
-        prodModPrice.setText(Double.toString(price));
+        prodModPrice.setText(Money.format(price));
         prodModMax.setText(Integer.toString(max));
         prodModMin.setText(Integer.toString(min));
-        modAscTbl.setItems(associatedPart);
+        associatedParts.setAll(associatedPart);
+        modAscTbl.setItems(associatedParts);
 
     }
 
@@ -168,6 +167,16 @@ public class ModifyProduct implements Initializable {
         thisProduct = product;
     }
 
+    /**
+     * Validator for the fields of the screen.
+     */
+    private final InputValidator input = new InputValidator();
+
+    /**
+     * Parts associated with the product while it is modified. The product only gets them when the user saves.
+     */
+    private final ObservableList<Part> associatedParts = FXCollections.observableArrayList();
+
     /**
      * Initializes the controller. Contains logic to set the tableview and search the tableview.
      * Uses a filtered list class and a predicate to filter the list of part objects and then displays the found parts in the tableview.
@@ -187,40 +196,27 @@ public class ModifyProduct implements Initializable {
         modAscInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
         modAscPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
 
-        // Used filtered list class to wrap the parts list returned from the Inventory class.
-        FilteredList<Part> partFilteredList = new FilteredList<>(Inventory.getAllParts(), b -> true);
-
-        // The logic inside the predicate filters the content of the tableview using ID or part name.
-        prodModSearch.textProperty().addListener((observable, oldValue, newValue) -> {
-            partFilteredList.setPredicate(part -> {
+        // the inventory lists are only used on the JavaFX application thread, also when the screen is preloaded
+        SceneCache.onApplicationThread(() -> {
+            // Used filtered list class to wrap the parts list returned from the Inventory class.
+            FilteredList<Part> partFilteredList = new FilteredList<>(Inventory.getAllParts(), b -> true);
 
-                if (newValue == null || newValue.isEmpty()) {
-                    return true;
-                }
+            // The search is resolved once per change in the searchfield, the predicate only checks for matching IDs.
+            SearchFilter.bindParts(prodModSearch, partFilteredList);
 
-                try {
-                    if (Inventory.lookupPart(Integer.parseInt(newValue)).getId() == part.getId()) {
-                        return true;
-                    }
-                } catch (NumberFormatException | NullPointerException e) {
-                    return false;
-                } finally {
-                    try{
-                        String lowerNewValue = newValue.toLowerCase();
-                        if (Inventory.lookupPart(lowerNewValue).contains(part)){
-                            return true;
-                        }
-                    }catch (NullPointerException e){
-                        return false;
-                    }
-                }
-                return false;
-            });
+            SortedList<Part> sortList = new SortedList<>(partFilteredList);
+            sortList.comparatorProperty().bind(prodModTable.comparatorProperty());
+            prodModTable.setItems(sortList);
         });
+    }
 
-        SortedList<Part> sortList = new SortedList<>(partFilteredList);
-        sortList.comparatorProperty().bind(prodModTable.comparatorProperty());
-        prodModTable.setItems(sortList);
+    /**
+     * Clears the searchfield and the selection before another product is modified.
+     */
+    @Override
+    public void reset() {
+        prodModSearch.clear();
+        prodModTable.getSelectionModel().clearSelection();
     }
 
     /**
@@ -230,12 +226,7 @@ public class ModifyProduct implements Initializable {
      * @throws IOException Error loading the view
      */
     public void modCancel(ActionEvent actionEvent) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource("/view/Main_Screen.fxml"));
-        Stage stage = (Stage)((Button)actionEvent.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root,1070,400);
-        stage.setTitle("");
-        stage.setScene(scene);
-        stage.show();
+        SceneCache.show(actionEvent, SceneCache.Screen.MAIN);
     }
 
     /**
@@ -244,11 +235,10 @@ public class ModifyProduct implements Initializable {
     public void modProdAdd() {
 
         try{
-            modAscTbl.setItems(thisProduct.getAssociatedParts());
             Part part = prodModTable.getSelectionModel().getSelectedItem();
 
             if (part != null){
-                Product.addToExistingProduct(thisProduct, part);
+                associatedParts.add(part);
             }else{
                 throw new NullPointerException();
             }
@@ -271,50 +261,15 @@ public class ModifyProduct implements Initializable {
     public void saveModProd(ActionEvent actionEvent) throws IOException {
 
         try{
-            // if-else statements validate user input and throw detailed exceptions specific to the invalid entry.
-            if(prodModName.getText().isEmpty()){
-                throw new NullPointerException("Please enter a product name in the Name field");
-            }
+            // every field is parsed once by the validator, which gives the message for the first field that is not valid
+            InputValidator.require(input.checkProduct(prodModName.getText(), prodModPrice.getText(), prodModInv.getText(),
+                    prodModMin.getText(), prodModMax.getText()));
 
-            // used regex to validate if anything other than an integer is entered.
-            // since price is a double I excluded the . character to allow decimals
-            if (prodModPrice.getText().matches(".*[^0-9.].*") || prodModPrice.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Price/Cost field");
-            }
-
-            if (prodModMax.getText().matches(".*\\D.*") || prodModMax.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Max field");
-            }
-
-            if (prodModMin.getText().matches(".*\\D.*") || prodModMin.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Min field");
-            }else if(Integer.parseInt(prodModMin.getText()) > Integer.parseInt(prodModMax.getText())){
-                throw new IllegalArgumentException("Min cannot be greater than max");
-            }
-
-            // second else if statement validates correct inventory number
-            if (prodModInv.getText().matches(".*\\D.*") || prodModInv.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Inv field");
-            }else if(Integer.parseInt(prodModInv.getText()) > Integer.parseInt(prodModMax.getText()) || Integer.parseInt(prodModInv.getText()) < Integer.parseInt(prodModMin.getText())){
-                throw new IllegalArgumentException("Inventory number entered is outside the min/max range");
-            }
+            int index = Inventory.getProductIndex(thisProduct);
 
-            Stage stage = (Stage)((Button)actionEvent.getSource()).getScene().getWindow();
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/Main_Screen.fxml"));
-            Region root = loader.load();
-
-            Scene scene = new Scene(root);
-            stage.setScene(scene);
-
-            ObservableList<Product> productList = Inventory.getAllProducts();
-
-            int index = productList.indexOf(thisProduct);
-
-            Inventory.updateProduct(index, thisProduct, prodModName.getText(), Double.parseDouble(prodModPrice.getText()),
-                    Integer.parseInt(prodModInv.getText()),Integer.parseInt(prodModMin.getText()), Integer.parseInt(prodModMax.getText()), thisProduct.getAssociatedParts());
-            stage.show();
-
-            Product.clearAssociatedParts();
+            Inventory.updateProduct(index, thisProduct, input.getName(), input.getPrice(), input.getStock(), input.getMin(),
+                    input.getMax(), associatedParts);
+            SceneCache.show(actionEvent, SceneCache.Screen.MAIN);
 
         } catch (NullPointerException | IllegalArgumentException e){
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -339,7 +294,10 @@ public class ModifyProduct implements Initializable {
             Optional<ButtonType> result = alert.showAndWait();
             if (result.get() == ButtonType.OK){
                 Part ascPart = modAscTbl.getSelectionModel().getSelectedItem();
-                Product.deleteAssociatedPart(thisProduct, ascPart);
+                if (ascPart == null){
+                    throw new NullPointerException();
+                }
+                associatedParts.remove(ascPart);
             } else {
                 alert.close();
             }
@@ -2,16 +2,12 @@ package controller;
 
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
-import javafx.scene.control.Button;
+import javafx.scene.control.RadioButton;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.AnchorPane;
-import javafx.stage.Stage;
-import model.InHouse;
+import model.InputValidator;
 import model.Inventory;
 
 import java.io.IOException;
@@ -23,7 +19,7 @@ import java.util.ResourceBundle;
  *
  * @author José L Dávila Montalvo
  */
-public class PartsScreenInHouse implements Initializable {
+public class PartsScreenInHouse implements Initializable, Resettable {
 
     /**
      * main pane for the inHouse scene.
@@ -67,18 +63,43 @@ public class PartsScreenInHouse implements Initializable {
     @FXML
     private TextField inHouseMin;
 
+    /**
+     * Inhouse radio button
+     */
+    @FXML
+    private RadioButton inhouseIn;
+
+    /**
+     * Validator for the fields of the screen.
+     */
+    private final InputValidator input = new InputValidator();
+
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
     }
 
+    /**
+     * Clears the textfields and selects the Inhouse radio button before the screen is shown again.
+     */
+    @Override
+    public void reset() {
+        inHouseName.clear();
+        inHouseInv.clear();
+        inHousePrice.clear();
+        inHouseMax.clear();
+        inHouseMin.clear();
+        inHouseMachine.clear();
+        inhouseIn.setSelected(true);
+    }
+
     /**
      * takes the user to the Outsourced part screen.
      *
+     * @param actionEvent outsourced radio button press
      * @throws IOException Error loading the view
      */
-    public void selectOutBtn() throws IOException {
-        AnchorPane pane = FXMLLoader.load(getClass().getResource("/view/Parts_Screen_Outsourced.fxml"));
-        inHouse.getChildren().setAll(pane);
+    public void selectOutBtn(ActionEvent actionEvent) throws IOException {
+        SceneCache.show(actionEvent, SceneCache.Screen.ADD_OUTSOURCED_PART);
     }
 
     /**
@@ -88,12 +109,7 @@ public class PartsScreenInHouse implements Initializable {
      * @throws IOException Error loading the view
      */
     public void inCancelBtn(ActionEvent actionEvent) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource("/view/Main_Screen.fxml"));
-        Stage stage = (Stage)((Button)actionEvent.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root,1070,400);
-        stage.setTitle("");
-        stage.setScene(scene);
-        stage.show();
+        SceneCache.show(actionEvent, SceneCache.Screen.MAIN);
     }
 
     /**
@@ -104,69 +120,18 @@ public class PartsScreenInHouse implements Initializable {
      */
     public void inHouseSaveBtn(ActionEvent actionEvent) throws IOException{
 
-        int id = Inventory.incrementPartId();
-
         try {
 
-            int stock;
-            Double price;
-            int min;
-            int max;
-            int machineId;
-            String name;
-
-            // if-else statements validate user input and throw detailed exceptions specific to the invalid entry.
-            if(inHouseName.getText().isEmpty()){
-                throw new NullPointerException("Please enter a part name in the Name field");
-            }else{
-                name = inHouseName.getText();
-            }
-
-            // used regex to validate if anything other than an integer is entered.
-            // since price is a double I excluded the . character to allow decimals
-            if (inHousePrice.getText().matches(".*[^0-9.].*") || inHousePrice.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Price/Cost field");
-            } else {
-                price = Double.parseDouble(inHousePrice.getText());
-            }
-
-            if (inHouseMax.getText().matches(".*\\D.*") || inHouseMax.getText().isEmpty()) {
-                throw new IllegalArgumentException("Please enter a number in the Max field");
-            } else {
-                max = Integer.parseInt(inHouseMax.getText());
-            }
-
-            if (inHouseMin.getText().matches(".*\\D.*") || inHouseMin.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Min field");
-            }else if (Integer.parseInt(inHouseMin.getText()) > max){
-                throw new IllegalArgumentException("Min cannot be greater than max");
-            }else {
-                min = Integer.parseInt(inHouseMin.getText());
-            }
-
-            if (inHouseMachine.getText().matches(".*\\D.*") || inHouseMachine.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Machine ID field");
-            } else {
-                machineId = Integer.parseInt(inHouseMachine.getText());
-            }
-
-            // second else if statement validates correct inventory number
-            if (inHouseInv.getText().matches(".*\\D.*") || inHouseInv.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Inv field");
-            }else if (Integer.parseInt(inHouseInv.getText()) > max || Integer.parseInt(inHouseInv.getText()) < min){
-                throw new IllegalArgumentException("Inventory number entered is outside the min/max range");
-            }else {
-                stock = Integer.parseInt(inHouseInv.getText());
-            }
-
-            Inventory.addPart(new InHouse(id, name, price, stock, min, max, machineId));
-
-            Parent root = FXMLLoader.load(getClass().getResource("/view/Main_Screen.fxml"));
-            Stage stage = (Stage) ((Button) actionEvent.getSource()).getScene().getWindow();
-            Scene scene = new Scene(root, 1070, 400);
-            stage.setTitle("");
-            stage.setScene(scene);
-            stage.show();
+            // every field is parsed once by the validator, which gives the message for the first field that is not valid
+            InputValidator.require(input.checkPart(inHouseName.getText(), inHousePrice.getText(), inHouseInv.getText(),
+                    inHouseMin.getText(), inHouseMax.getText()));
+            InputValidator.require(input.checkMachineId(inHouseMachine.getText()));
+
+            // automatically generates an ID for the part once the input is valid, so invalid input does not use up an ID
+            int id = Inventory.incrementPartId();
+            Inventory.addPart(input.newInHouse(id));
+
+            SceneCache.show(actionEvent, SceneCache.Screen.MAIN);
 
         } catch(NullPointerException | IllegalArgumentException e){
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -1,19 +1,14 @@
 package controller;
 
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
-import javafx.scene.control.Button;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.Region;
-import javafx.stage.Stage;
+import model.InputValidator;
 import model.Inventory;
+import model.Money;
 import model.Part;
 
 import java.io.IOException;
@@ -80,6 +75,11 @@ public class PartsScreenModInHouse implements Initializable {
      */
     public static Part thisPart;
 
+    /**
+     * Validator for the fields of the screen.
+     */
+    private final InputValidator input = new InputValidator();
+
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
     }
@@ -90,17 +90,17 @@ public class PartsScreenModInHouse implements Initializable {
      * @param id product id
      * @param name product name
      * @param inv   product inventory amount
-     * @param price product price
+     * @param price product price in cents
      * @param max product max inventory amount
      * @param min product min inventory amount
      * @param machineId machine id that created the part
      */
-    public void setFields(int id, String name, int inv, double price, int max, int min, int machineId){
+    public void setFields(int id, String name, int inv, long price, int max, int min, int machineId){
 
         inhouseID.setText(Integer.toString(id));
         inhouseName.setText(name);
         inhouseInv.setText(Integer.toString(inv));
-        inhousePrice.setText(Double.toString(price));
+        inhousePrice.setText(Money.format(price));
         inhouseMax.setText(Integer.toString(max));
         inhouseMin.setText(Integer.toString(min));
         inhouseMachine.setText(Integer.toString(machineId));
@@ -123,12 +123,7 @@ public class PartsScreenModInHouse implements Initializable {
      * @throws IOException Error loading the view
      */
     public void inModCancel(ActionEvent actionEvent) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource("/view/Main_Screen.fxml"));
-        Stage stage = (Stage)((Button)actionEvent.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root,1070,400);
-        stage.setTitle("");
-        stage.setScene(scene);
-        stage.show();
+        SceneCache.show(actionEvent, SceneCache.Screen.MAIN);
     }
 
     /**
@@ -139,56 +134,19 @@ public class PartsScreenModInHouse implements Initializable {
      */
     public void saveData(ActionEvent actionEvent) throws IOException {
 
-        ObservableList<Part> testList = Inventory.getAllParts();
-
-        int index = testList.indexOf(thisPart);
+        int index = Inventory.getPartIndex(thisPart);
 
         try {
 
-            // if-else statements validate user input and throw detailed exceptions specific to the invalid entry.
-            if(inhouseName.getText().isEmpty()){
-                throw new NullPointerException("Please enter a part name in the Name field");
-            }
-
-            // used regex to validate if anything other than an integer is entered.
-            // since price is a double I excluded the . character to allow decimals
-            if (inhousePrice.getText().matches(".*[^0-9.].*") || inhousePrice.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Price/Cost field");
-            }
-
-            if (inhouseMax.getText().matches(".*\\D.*") || inhouseMax.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Max field");
-            }
-
-            if (inhouseMin.getText().matches(".*\\D.*") || inhouseMin.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Min field");
-            }else if(Integer.parseInt(inhouseMin.getText()) > Integer.parseInt(inhouseMax.getText())){
-                throw new IllegalArgumentException("Min cannot be greater than max");
-            }
-
-            // second else if statement validates correct inventory number
-            if (inhouseInv.getText().matches(".*\\D.*") || inhouseInv.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Inv field");
-            }else if (Integer.parseInt(inhouseInv.getText()) > Integer.parseInt(inhouseMax.getText()) || Integer.parseInt(inhouseInv.getText()) < Integer.parseInt(inhouseMin.getText())){
-                throw new IllegalArgumentException("Inventory number entered is outside the min/max range");
-            }
-
-            if (inhouseMachine.getText().matches(".*\\D.*") || inhouseMachine.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Machine ID field");
-            }
-
-            Inventory.updateInhousePart(index, thisPart, inhouseName.getText(), Double.parseDouble(inhousePrice.getText()),
-                    Integer.parseInt(inhouseInv.getText()),Integer.parseInt(inhouseMin.getText()), Integer.parseInt(inhouseMax.getText()),
-                    Integer.parseInt(inhouseMachine.getText()));
-
-            Stage stage = (Stage)((Button)actionEvent.getSource()).getScene().getWindow();
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/Main_Screen.fxml"));
-            Region root = loader.load();
-
-            Scene scene = new Scene(root);
-            stage.setScene(scene);
-
-            stage.show();
+            // every field is parsed once by the validator, which gives the message for the first field that is not valid
+            InputValidator.require(input.checkPart(inhouseName.getText(), inhousePrice.getText(), inhouseInv.getText(),
+                    inhouseMin.getText(), inhouseMax.getText()));
+            InputValidator.require(input.checkMachineId(inhouseMachine.getText()));
+
+            Inventory.updateInhousePart(index, thisPart, input.getName(), input.getPrice(), input.getStock(), input.getMin(),
+                    input.getMax(), input.getMachineId());
+
+            SceneCache.show(actionEvent, SceneCache.Screen.MAIN);
 
         } catch(NullPointerException | IllegalArgumentException e){
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -2,17 +2,13 @@ package controller;
 
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.AnchorPane;
-import javafx.stage.Stage;
-import javafx.scene.control.Button;
+import javafx.scene.control.RadioButton;
+import model.InputValidator;
 import model.Inventory;
-import model.OutSourced;
 
 import java.io.IOException;
 import java.net.URL;
@@ -23,7 +19,7 @@ import java.util.ResourceBundle;
  *
  * @author José L Dávila Montalvo
  */
-public class PartsScreenOutsourced implements Initializable {
+public class PartsScreenOutsourced implements Initializable, Resettable {
 
     /**
      * main pane for the outsourced scene.
@@ -67,18 +63,50 @@ public class PartsScreenOutsourced implements Initializable {
     @FXML
     private TextField outsourcedMin;
 
+    /**
+     * Inhouse radio button
+     */
+    @FXML
+    private RadioButton outsourcedIn;
+
+    /**
+     * Outsourced radio button
+     */
+    @FXML
+    private RadioButton outsourcedOut;
+
+    /**
+     * Validator for the fields of the screen.
+     */
+    private final InputValidator input = new InputValidator();
+
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
     }
 
+    /**
+     * Clears the textfields and selects the Outsourced radio button before the screen is shown again.
+     */
+    @Override
+    public void reset() {
+        outsourcedName.clear();
+        outsourcedInv.clear();
+        outsourcedPrice.clear();
+        outsourcedMax.clear();
+        outsourcedMin.clear();
+        outsourcedCompany.clear();
+        outsourcedIn.setSelected(false);
+        outsourcedOut.setSelected(true);
+    }
+
     /**
      * takes the user to the Inhouse part screen.
      *
+     * @param actionEvent inhouse radio button press
      * @throws IOException Error loading the view
      */
-    public void selectIn() throws IOException {
-        AnchorPane pane = FXMLLoader.load(getClass().getResource("/view/Parts_Screen_InHouse.fxml"));
-        outsourced.getChildren().setAll(pane);
+    public void selectIn(ActionEvent actionEvent) throws IOException {
+        SceneCache.show(actionEvent, SceneCache.Screen.ADD_IN_HOUSE_PART);
     }
 
     /**
@@ -88,12 +116,7 @@ public class PartsScreenOutsourced implements Initializable {
      * @throws IOException Error loading the view
      */
     public void outCancelBtn(ActionEvent actionEvent) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource("/view/Main_Screen.fxml"));
-        Stage stage = (Stage)((Button)actionEvent.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root,1070,400);
-        stage.setTitle("");
-        stage.setScene(scene);
-        stage.show();
+        SceneCache.show(actionEvent, SceneCache.Screen.MAIN);
     }
 
     /**
@@ -104,68 +127,17 @@ public class PartsScreenOutsourced implements Initializable {
      */
     public void outSaveBtn(ActionEvent actionEvent) throws IOException {
 
-        int id = Inventory.incrementPartId();
-
         try {
-            int stock;
-            Double price;
-            int min;
-            int max;
-            String companyName;
-            String name;
-
-            // if-else statements validate user input and throw detailed exceptions specific to the invalid entry.
-            if(outsourcedName.getText().isEmpty()){
-                throw new NullPointerException("Please enter a part name in the Name field");
-            }else{
-                name = outsourcedName.getText();
-            }
-
-            // used regex to validate if anything other than an integer is entered.
-            // since price is a double I excluded the . character to allow decimals
-            if (outsourcedPrice.getText().matches(".*[^0-9.].*") || outsourcedPrice.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Price/Cost field");
-            } else {
-                price = Double.parseDouble(outsourcedPrice.getText());
-            }
-
-            if (outsourcedMax.getText().matches(".*\\D.*") || outsourcedMax.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Max field");
-            } else {
-                max = Integer.parseInt(outsourcedMax.getText());
-            }
-
-            if (outsourcedMin.getText().matches(".*\\D.*") || outsourcedMin.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Min field");
-            }else if(Integer.parseInt(outsourcedMin.getText()) > max){
-                throw new IllegalArgumentException("Min cannot be greater than max");
-            } else {
-                min = Integer.parseInt(outsourcedMin.getText());
-            }
-
-            // second else if statement validates correct inventory number
-            if (outsourcedInv.getText().matches(".*\\D.*") || outsourcedInv.getText().isEmpty()) {
-                throw new NumberFormatException("Please enter a number in the Inv field");
-            }else if(Integer.parseInt(outsourcedInv.getText()) > max || Integer.parseInt(outsourcedInv.getText()) < min){
-                throw new IllegalArgumentException("Inventory number entered is outside the min/max range");
-            } else {
-                stock = Integer.parseInt(outsourcedInv.getText());
-            }
-
-            if (outsourcedCompany.getText().isEmpty()) {
-                throw new NullPointerException("Please enter a name in the Company Name field");
-            } else {
-                companyName = outsourcedCompany.getText();
-            }
-
-            Inventory.addPart(new OutSourced(id, name, price, stock, min, max, companyName));
-
-            Parent root = FXMLLoader.load(getClass().getResource("/view/Main_Screen.fxml"));
-            Stage stage = (Stage) ((Button) actionEvent.getSource()).getScene().getWindow();
-            Scene scene = new Scene(root, 1070, 400);
-            stage.setTitle("");
-            stage.setScene(scene);
-            stage.show();
+            // every field is parsed once by the validator, which gives the message for the first field that is not valid
+            InputValidator.require(input.checkPart(outsourcedName.getText(), outsourcedPrice.getText(), outsourcedInv.getText(),
+                    outsourcedMin.getText(), outsourcedMax.getText()));
+            InputValidator.require(input.checkCompanyName(outsourcedCompany.getText()));
+
+            // automatically generates an ID for the part once the input is valid, so invalid input does not use up an ID
+            int id = Inventory.incrementPartId();
+            Inventory.addPart(input.newOutSourced(id));
+
+            SceneCache.show(actionEvent, SceneCache.Screen.MAIN);
 
         } catch(NullPointerException | IllegalArgumentException e){
             Alert alert = new Alert(Alert.AlertType.ERROR);
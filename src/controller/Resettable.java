@@ -0,0 +1,15 @@
+package controller;
+
+/**
+ * Interface for controllers of screens that are kept by the SceneCache.
+ * A cached screen keeps what the user typed the last time it was shown, reset puts it back the way it looks when it is first loaded.
+ *
+ * @author José L Dávila Montalvo
+ */
+public interface Resettable {
+
+    /**
+     * Method clears the screen before it is shown again.
+     */
+    void reset();
+}
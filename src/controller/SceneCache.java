@@ -0,0 +1,200 @@
+package controller;
+
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * SceneCache class that loads every screen of the program once and reuses its scene and controller on every later visit.
+ * Tables, filtered lists and searches are set up by the controller the first time the screen is loaded and stay bound to the Inventory,
+ * so going back to a screen only swaps the scene of the stage. Controllers that implement Resettable are reset before their screen
+ * is shown again.
+ * The cache is only used on the JavaFX application thread, except for preload which loads views on a background thread.
+ *
+ * @author José L Dávila Montalvo
+ */
+public final class SceneCache {
+
+    /**
+     * Screens of the program with their view and the size of their scene. A size of -1 uses the preferred size of the view.
+     */
+    public enum Screen {
+        MAIN("/view/Main_Screen.fxml", 1070, 400),
+        ADD_IN_HOUSE_PART("/view/Parts_Screen_InHouse.fxml", 549, 653),
+        ADD_OUTSOURCED_PART("/view/Parts_Screen_Outsourced.fxml", 549, 653),
+        MODIFY_IN_HOUSE_PART("/view/Parts_ScreenMod_InHouse.fxml", -1, -1),
+        MODIFY_OUTSOURCED_PART("/view/Parts_ScreenMod_Outsourced.fxml", -1, -1),
+        ADD_PRODUCT("/view/Add_Product.fxml", 1114, 566),
+        MODIFY_PRODUCT("/view/Modify_Product.fxml", -1, -1);
+
+        private final String view;
+        private final double width;
+        private final double height;
+
+        Screen(String view, double width, double height){
+            this.view = view;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * @return the location of the FXML file of the screen.
+         */
+        public String getView(){
+            return view;
+        }
+    }
+
+    /**
+     * Loaded screens.
+     */
+    private static final Map<Screen, Loaded> screens = new EnumMap<>(Screen.class);
+
+    private SceneCache(){
+    }
+
+    /**
+     * Method shows a screen in the window of the button that was pressed.
+     *
+     * @param actionEvent button press
+     * @param screen Screen to show.
+     * @param <T> type of the controller of the screen.
+     * @return the controller of the screen.
+     * @throws IOException Error loading the view
+     */
+    public static <T> T show(ActionEvent actionEvent, Screen screen) throws IOException {
+        return show((Stage) ((Node) actionEvent.getSource()).getScene().getWindow(), screen);
+    }
+
+    /**
+     * Method shows a screen in a window. The screen is loaded the first time it is shown and reset every other time.
+     *
+     * @param stage Window that shows the screen.
+     * @param screen Screen to show.
+     * @param <T> type of the controller of the screen.
+     * @return the controller of the screen.
+     * @throws IOException Error loading the view
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T show(Stage stage, Screen screen) throws IOException {
+        Loaded loaded = screens.get(screen);
+        if(loaded == null){
+            loaded = load(screen);
+            screens.put(screen, loaded);
+        }else if(loaded.controller instanceof Resettable){
+            ((Resettable) loaded.controller).reset();
+        }
+        stage.setTitle("");
+        stage.setScene(loaded.scene);
+        stage.show();
+        return (T) loaded.controller;
+    }
+
+    /**
+     * Method loads the view and controller of a screen on a background thread and adds the screen to the cache on the JavaFX
+     * application thread, so its first visit does not wait for the view to load.
+     * Controllers connect their tableviews to the inventory lists through onApplicationThread, so the lists are only touched by the
+     * JavaFX application thread and the view is loaded without holding any Inventory lock.
+     *
+     * @param screen Screen to load.
+     * @param executor Background executor that loads the view.
+     * @return future completed when the screen is in the cache.
+     */
+    public static CompletableFuture<Void> preload(Screen screen, Executor executor){
+        return CompletableFuture.supplyAsync(() -> {
+            try{
+                return loadView(screen);
+            }catch (IOException e){
+                throw new UncheckedIOException(e);
+            }
+        }, executor).thenAcceptAsync(view -> {
+            // scenes are created on the JavaFX application thread, a screen shown before it finished preloading is kept
+            if(!screens.containsKey(screen)){
+                screens.put(screen, new Loaded(new Scene(view.root, screen.width, screen.height), view.controller));
+            }
+        }, Platform::runLater);
+    }
+
+    /**
+     * Method runs code that connects a controller to the inventory lists on the JavaFX application thread. While a view is preloaded
+     * on a background thread the code is queued, and it runs before the preloaded screen is added to the cache.
+     *
+     * @param connect Code that binds tableviews, filtered lists or listeners to the inventory lists.
+     */
+    public static void onApplicationThread(Runnable connect){
+        if(Platform.isFxApplicationThread()){
+            connect.run();
+        }else{
+            Platform.runLater(connect);
+        }
+    }
+
+    /**
+     * Method removes every loaded screen, the next visit to each screen loads it again.
+     */
+    public static void clear(){
+        screens.clear();
+    }
+
+    /**
+     * Method loads the view of a screen and creates its scene.
+     *
+     * @param screen Screen to load.
+     * @return the scene and controller of the screen.
+     * @throws IOException Error loading the view
+     */
+    private static Loaded load(Screen screen) throws IOException {
+        View view = loadView(screen);
+        return new Loaded(new Scene(view.root, screen.width, screen.height), view.controller);
+    }
+
+    /**
+     * Method loads the view of a screen and its controller.
+     *
+     * @param screen Screen to load.
+     * @return the root node and controller of the screen.
+     * @throws IOException Error loading the view
+     */
+    private static View loadView(Screen screen) throws IOException {
+        FXMLLoader loader = new FXMLLoader(SceneCache.class.getResource(screen.view));
+        Parent root = loader.load();
+        return new View(root, loader.getController());
+    }
+
+    /**
+     * Root node and controller of a view that does not have a scene yet.
+     */
+    private static class View {
+        private final Parent root;
+        private final Object controller;
+
+        View(Parent root, Object controller){
+            this.root = root;
+            this.controller = controller;
+        }
+    }
+
+    /**
+     * Scene and controller of a loaded screen.
+     */
+    private static class Loaded {
+        private final Scene scene;
+        private final Object controller;
+
+        Loaded(Scene scene, Object controller){
+            this.scene = scene;
+            this.controller = controller;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package controller;
+
+import javafx.animation.Animation;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.Observable;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
+import model.Inventory;
+import model.PagedPartList;
+import model.Part;
+import model.Product;
+
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Search filter shared by the MainScreen, AddProduct and ModifyProduct controllers.
+ * Each time the searchfield changes, the text is resolved into a set of matching ids once and the filtered list only checks if each
+ * row id is in that set. A paged list of parts shows the parts of that set.
+ * <p>
+ * Searches run in the background so the screen does not freeze on large inventories. Keystrokes are debounced, a search that is
+ * replaced by a newer keystroke is cancelled, and only the result of the latest search is applied to the tableview on the JavaFX thread.
+ * </p>
+ * <p>
+ * The set of ids only holds the parts or products that matched when the search ran, so the search runs again after the inventory
+ * list changes. Parts or products that were added or renamed then show or hide without the user typing again. Changes made while a
+ * search is waiting are picked up by that search, so a stream of changes runs at most one search per debounce time.
+ * </p>
+ *
+ * @author José L Dávila Montalvo
+ */
+public class SearchFilter {
+
+    /**
+     * Time to wait after the last keystroke before the search starts.
+     */
+    private static final Duration DEBOUNCE = Duration.millis(150);
+
+    /**
+     * Background thread that resolves searches off the JavaFX thread.
+     */
+    private static final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Method returns a predicate that shows the parts matching the text entered.
+     *
+     * @param text Id number or partial name entered in the searchfield.
+     * @return predicate used by a filtered list of parts.
+     */
+    public static Predicate<Part> parts(String text){
+        if(text == null || text.isEmpty()){
+            return part -> true;
+        }
+        Set<Integer> matches = Inventory.matchPartIds(text);
+        return part -> matches.contains(part.getId());
+    }
+
+    /**
+     * Method returns a predicate that shows the products matching the text entered.
+     *
+     * @param text Id number or partial name entered in the searchfield.
+     * @return predicate used by a filtered list of products.
+     */
+    public static Predicate<Product> products(String text){
+        if(text == null || text.isEmpty()){
+            return product -> true;
+        }
+        Set<Integer> matches = Inventory.matchProductIds(text);
+        return product -> matches.contains(product.getId());
+    }
+
+    /**
+     * Method filters a list of parts every time the text in the searchfield changes.
+     *
+     * @param searchField Searchfield the user types in.
+     * @param filteredList Filtered list displayed in the tableview.
+     */
+    public static void bindParts(TextField searchField, FilteredList<Part> filteredList){
+        new AsyncSearch<>(searchField, filteredList.getSource(), SearchFilter::parts, filteredList::setPredicate);
+    }
+
+    /**
+     * Method narrows a paged list of parts every time the text in the searchfield changes, with the same search as bindParts.
+     *
+     * @param searchField Searchfield the user types in.
+     * @param pagedList Paged list displayed in the tableview.
+     */
+    public static void bindParts(TextField searchField, PagedPartList pagedList){
+        new AsyncSearch<>(searchField, Inventory.getAllParts(),
+                text -> text == null || text.isEmpty() ? null : Inventory.matchPartIds(text), pagedList::show);
+    }
+
+    /**
+     * Method filters a list of products every time the text in the searchfield changes.
+     *
+     * @param searchField Searchfield the user types in.
+     * @param filteredList Filtered list displayed in the tableview.
+     */
+    public static void bindProducts(TextField searchField, FilteredList<Product> filteredList){
+        new AsyncSearch<>(searchField, filteredList.getSource(), SearchFilter::products, filteredList::setPredicate);
+    }
+
+    /**
+     * Connects one searchfield to one list.
+     * Every keystroke restarts the debounce timer and cancels the running search. When the timer ends the text is resolved in the
+     * background and the result is applied only if no newer keystroke happened in the meantime.
+     *
+     * @param <R> Result of a search, a predicate for a filtered list or the ids for a paged list
+     */
+    private static class AsyncSearch<R> {
+
+        private final TextField searchField;
+        private final Function<String, R> resolver;
+        private final Consumer<R> result;
+        private final PauseTransition pause = new PauseTransition(DEBOUNCE);
+
+        /**
+         * Number of the latest keystroke or search, only read and written on the JavaFX thread.
+         */
+        private long generation;
+        private Future<?> running;
+
+        /**
+         * Constructor listens to the searchfield and to the inventory list.
+         *
+         * @param searchField Searchfield the user types in.
+         * @param source Inventory list searched.
+         * @param resolver Resolves the text entered, in the background.
+         * @param result Applies the result of a search to the list displayed in the tableview, on the JavaFX thread.
+         */
+        AsyncSearch(TextField searchField, ObservableList<?> source, Function<String, R> resolver, Consumer<R> result){
+            this.searchField = searchField;
+            this.resolver = resolver;
+            this.result = result;
+
+            pause.setOnFinished(event -> search());
+            source.addListener((Observable observable) -> inventoryChanged());
+            searchField.textProperty().addListener((observable, oldValue, newValue) -> {
+                generation++;
+                cancelRunning();
+
+                // clearing the searchfield shows every row right away
+                if(newValue == null || newValue.isEmpty()){
+                    pause.stop();
+                    result.accept(resolver.apply(newValue));
+                }else{
+                    pause.playFromStart();
+                }
+            });
+        }
+
+        /**
+         * Method runs the search again after the inventory list changed, unless the searchfield is empty and every row is shown.
+         * The timer is not restarted if it is already waiting, so changes that keep coming cannot hold the search back.
+         */
+        private void inventoryChanged(){
+            String text = searchField.getText();
+            if(text != null && !text.isEmpty() && pause.getStatus() != Animation.Status.RUNNING){
+                pause.playFromStart();
+            }
+        }
+
+        /**
+         * Method resolves the current text in the background and publishes the result if it is still the latest search.
+         */
+        private void search(){
+            String text = searchField.getText();
+            long thisSearch = ++generation;
+            running = searchExecutor.submit(() -> {
+                R found = resolver.apply(text);
+                if(Thread.currentThread().isInterrupted()){
+                    return;
+                }
+                Platform.runLater(() -> {
+                    if(thisSearch == generation){
+                        result.accept(found);
+                    }
+                });
+            });
+        }
+
+        /**
+         * Method cancels the search that is waiting or running, if any.
+         */
+        private void cancelRunning(){
+            if(running != null){
+                running.cancel(true);
+                running = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package main;
+
+import controller.SceneCache;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import model.Inventory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * FastStart class used by the --fast-start argument. The main window is shown first, then the other screens are loaded and the
+ * inventory searches are warmed up on background threads, so the first click on every button is as fast as the later ones.
+ * <p>
+ * Two times are measured from the start of the JVM: time to first frame, when the main window is first drawn, and time to
+ * interactive, when every screen is loaded and warmed up. They are printed when the inventory.startup.times system property is true.
+ * </p>
+ *
+ * @author José L Dávila Montalvo
+ */
+final class FastStart {
+
+    /**
+     * Private properties of the startup.
+     */
+    private static long firstFrameMillis;
+    private static long interactiveMillis;
+
+    private FastStart(){
+    }
+
+    /**
+     * Method starts preloading after the main window has been shown. Called on the JavaFX application thread.
+     */
+    static void begin(){
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                firstFrameMillis = uptime();
+                stop();
+            }
+        }.start();
+
+        ExecutorService preload = Executors.newFixedThreadPool(Math.min(4, Runtime.getRuntime().availableProcessors()), r -> {
+            Thread thread = new Thread(r, "inventory-preload");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        tasks.add(CompletableFuture.runAsync(FastStart::warmInventory, preload));
+        for(SceneCache.Screen screen: SceneCache.Screen.values()){
+            if(screen != SceneCache.Screen.MAIN){
+                tasks.add(SceneCache.preload(screen, preload));
+            }
+        }
+
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).whenComplete((done, error) -> {
+            preload.shutdown();
+            Platform.runLater(() -> {
+                interactiveMillis = uptime();
+                if(error != null){
+                    System.err.println("Preloading failed: " + error);
+                }
+                if(Boolean.getBoolean("inventory.startup.times")){
+                    System.out.println("Startup: first frame after " + firstFrameMillis + " ms, interactive after " + interactiveMillis + " ms");
+                }
+            });
+        });
+    }
+
+    /**
+     * Method runs every kind of inventory search and total once, so their code is loaded and compiled before the user needs it.
+     */
+    private static void warmInventory(){
+        for(String text: new String[]{"a", "bo", "1"}){
+            Inventory.matchPartIds(text);
+            Inventory.matchProductIds(text);
+            Inventory.lookupPart(text);
+            Inventory.lookupProduct(text);
+        }
+        Inventory.getTotalPartValue();
+        Inventory.getLowStockPartCount();
+    }
+
+    /**
+     * @return the milliseconds since the JVM started.
+     */
+    private static long uptime(){
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+}
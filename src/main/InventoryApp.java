@@ -0,0 +1,37 @@
+package main;
+
+import controller.SceneCache;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.stage.Stage;
+import model.Inventory;
+
+/**
+ * InventoryApp class that shows the screens of the program. It is started by Main, which keeps no JavaFX code so the program can
+ * also run without the JavaFX toolkit.
+ *
+ * @author José L Dávila Montalvo
+ */
+public class InventoryApp extends Application {
+
+    /**
+     * True when the program was started with the --fast-start argument.
+     */
+    static boolean fastStart;
+
+    @Override
+    public void start(Stage stage) throws Exception {
+        // changes made on other threads reach the tableviews on the JavaFX application thread
+        Inventory.setChangeExecutor(change -> {
+            if(Platform.isFxApplicationThread()){
+                change.run();
+            }else{
+                Platform.runLater(change);
+            }
+        });
+        SceneCache.show(stage, SceneCache.Screen.MAIN);
+        if(fastStart){
+            FastStart.begin();
+        }
+    }
+}
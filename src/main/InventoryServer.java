@@ -0,0 +1,581 @@
+package main;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * InventoryServer class that serves the Inventory as JSON over HTTP, for scanners and other programs that do not use the screens.
+ * <p>
+ * Parts:
+ * GET /parts?search=text&amp;limit=n lists the parts whose id or name matches, in id order.
+ * GET, PUT and DELETE /parts/{id} read, update and delete one part, a part used by a product is not deleted.
+ * POST /parts adds a part, the body has type (inhouse or outsourced), name, price, stock, min, max and machineId or companyName.
+ * POST /parts/{id}/stock with a body like {"change": -2} adds to or takes from the stock of the part.
+ * Products use the same paths under /products, their body has name, price, stock, min, max and parts, the ids of the associated parts.
+ * Products are answered with their materialCost, the sum of the prices of their associated parts.
+ * POST /products/{id}/build with a body like {"quantity": 3} builds units of the product from the stock of its associated parts.
+ * GET /reorders?limit=n lists the parts and products at or below their min stock, most urgent first, with the quantity to order.
+ * </p>
+ * <p>
+ * Each request runs on its own virtual thread when the JVM has them, and on a pooled thread otherwise. Requests only use the
+ * thread safe methods of the Inventory, so they run in parallel with each other and with the screens. Errors are answered with a
+ * status code and a body like {"error": "message"}.
+ * </p>
+ *
+ * @author José L Dávila Montalvo
+ */
+public class InventoryServer {
+
+    /**
+     * Port used when no port is given.
+     */
+    public static final int DEFAULT_PORT = 8080;
+
+    /**
+     * Number of parts or products listed when no limit is given.
+     */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * Most digits a number of a request body is written out with. Fields of parts and products need far fewer, and a number like 1e999999999
+     * would otherwise be written out in full.
+     */
+    private static final int MAX_DIGITS = 40;
+
+    /**
+     * Private properties of the server.
+     */
+    private final HttpServer server;
+    private final ExecutorService requests;
+    private final ReorderMonitor reorders;
+
+    /**
+     * Constructor for a server that only answers programs on the same computer.
+     *
+     * @param port Port to listen on, 0 picks a free port.
+     * @throws IOException if the port cannot be opened.
+     */
+    public InventoryServer(int port) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Constructor for a server.
+     *
+     * @param address Address and port to listen on.
+     * @throws IOException if the port cannot be opened.
+     */
+    public InventoryServer(InetSocketAddress address) throws IOException {
+        // without TCP_NODELAY the headers and the body of a response wait on each other for about 40 ms on a kept alive connection
+        if(System.getProperty("sun.net.httpserver.nodelay") == null){
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(address, 1024);
+        requests = newRequestExecutor();
+        server.setExecutor(requests);
+        server.createContext("/parts", answered(this::handleParts));
+        server.createContext("/products", answered(this::handleProducts));
+        server.createContext("/reorders", answered(this::handleReorders));
+        reorders = ReorderMonitor.start();
+    }
+
+    /**
+     * Method starts answering requests.
+     */
+    public void start(){
+        server.start();
+    }
+
+    /**
+     * Method stops the server, waiting up to the given time for requests in progress.
+     *
+     * @param seconds Most seconds to wait.
+     */
+    public void stop(int seconds){
+        server.stop(seconds);
+        reorders.stop();
+        requests.shutdown();
+        try{
+            requests.awaitTermination(seconds, TimeUnit.SECONDS);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the port the server listens on.
+     */
+    public int getPort(){
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Method creates the executor of the requests. Virtual threads are found by reflection so the program still runs on JVMs without them.
+     *
+     * @return an executor that starts a virtual thread for each request, or a pool of daemon threads.
+     */
+    static ExecutorService newRequestExecutor(){
+        try{
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }catch (ReflectiveOperationException e){
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "inventory-request");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Method wraps a handler so every request is answered, even when the handler fails: input errors are answered with 400 and any
+     * other failure with 500.
+     *
+     * @param handler Handler of a context.
+     * @return the handler that always answers.
+     */
+    private static HttpHandler answered(HttpHandler handler){
+        return exchange -> {
+            try{
+                handler.handle(exchange);
+            }catch (IllegalArgumentException e){
+                sendError(exchange, 400, e.getMessage());
+            }catch (RuntimeException | Error e){
+                sendError(exchange, 500, "The request could not be answered: " + e);
+            }finally{
+                exchange.close();
+            }
+        };
+    }
+
+    /**
+     * Method answers the requests under /parts.
+     */
+    private void handleParts(HttpExchange exchange) throws IOException {
+        String[] path = pathOf(exchange, "/parts");
+        String method = exchange.getRequestMethod();
+        if(path.length == 0){
+            if("GET".equals(method)){
+                Map<String, String> query = queryOf(exchange);
+                StringBuilder body = new StringBuilder("[");
+                for(int id: firstIds(Inventory.matchPartIds(query.getOrDefault("search", "")), limitOf(query))){
+                    Part part = Inventory.lookupPart(id);
+                    if(part != null){
+                        appendPart(body.length() > 1 ? body.append(',') : body, part);
+                    }
+                }
+                send(exchange, 200, body.append(']'));
+            }else if("POST".equals(method)){
+                Part part = newPart(Json.parseObject(readBody(exchange)), Inventory::incrementPartId);
+                Inventory.addPart(part);
+                send(exchange, 201, appendPart(new StringBuilder(), part));
+            }else{
+                sendError(exchange, 405, "Method " + method + " is not allowed");
+            }
+            return;
+        }
+
+        int id = idOf(path[0]);
+        Part part = Inventory.lookupPart(id);
+        if(part == null){
+            sendError(exchange, 404, "Part " + path[0] + " does not exist");
+        }else if(path.length == 2 && "stock".equals(path[1]) && "POST".equals(method)){
+            part = Inventory.adjustPartStock(id, intOf(Json.parseObject(readBody(exchange)), "change",
+                    "Please enter a number in the change field"));
+            if(part == null){
+                sendError(exchange, 404, "Part " + id + " does not exist");
+            }else{
+                send(exchange, 200, appendPart(new StringBuilder(), part));
+            }
+        }else if(path.length != 1){
+            sendError(exchange, 404, "Unknown path " + exchange.getRequestURI().getPath());
+        }else if("GET".equals(method)){
+            send(exchange, 200, appendPart(new StringBuilder(), part));
+        }else if("PUT".equals(method)){
+            Part changed = newPart(Json.parseObject(readBody(exchange)), () -> id);
+            if(changed.getClass() != part.getClass()){
+                throw new IllegalArgumentException("The type of a part cannot be changed");
+            }
+            if(changed instanceof InHouse){
+                Inventory.updateInhousePart(-1, part, changed.getName(), changed.getPriceCents(), changed.getStock(), changed.getMin(),
+                        changed.getMax(), ((InHouse) changed).getMachineId());
+            }else{
+                Inventory.updateOutsourcedPart(-1, part, changed.getName(), changed.getPriceCents(), changed.getStock(), changed.getMin(),
+                        changed.getMax(), ((OutSourced) changed).getCompanyName());
+            }
+            send(exchange, 200, appendPart(new StringBuilder(), part));
+        }else if("DELETE".equals(method)){
+            boolean deleted;
+            try{
+                deleted = Inventory.deletePart(part);
+            }catch (IllegalStateException e){
+                sendError(exchange, 409, e.getMessage());
+                return;
+            }
+            if(deleted){
+                send(exchange, 204, null);
+            }else{
+                sendError(exchange, 404, "Part " + id + " does not exist");
+            }
+        }else{
+            sendError(exchange, 405, "Method " + method + " is not allowed");
+        }
+    }
+
+    /**
+     * Method answers the requests under /products.
+     */
+    private void handleProducts(HttpExchange exchange) throws IOException {
+        String[] path = pathOf(exchange, "/products");
+        String method = exchange.getRequestMethod();
+        if(path.length == 0){
+            if("GET".equals(method)){
+                Map<String, String> query = queryOf(exchange);
+                StringBuilder body = new StringBuilder("[");
+                for(int id: firstIds(Inventory.matchProductIds(query.getOrDefault("search", "")), limitOf(query))){
+                    Product product = Inventory.lookupProduct(id);
+                    if(product != null){
+                        appendProduct(body.length() > 1 ? body.append(',') : body, product);
+                    }
+                }
+                send(exchange, 200, body.append(']'));
+            }else if("POST".equals(method)){
+                Product product = newProduct(Json.parseObject(readBody(exchange)), Inventory::incrementProdId);
+                Inventory.addProduct(product);
+                send(exchange, 201, appendProduct(new StringBuilder(), product));
+            }else{
+                sendError(exchange, 405, "Method " + method + " is not allowed");
+            }
+            return;
+        }
+
+        int id = idOf(path[0]);
+        Product product = Inventory.lookupProduct(id);
+        if(product == null){
+            sendError(exchange, 404, "Product " + path[0] + " does not exist");
+        }else if(path.length == 2 && "stock".equals(path[1]) && "POST".equals(method)){
+            product = Inventory.adjustProductStock(id, intOf(Json.parseObject(readBody(exchange)), "change",
+                    "Please enter a number in the change field"));
+            if(product == null){
+                sendError(exchange, 404, "Product " + id + " does not exist");
+            }else{
+                send(exchange, 200, appendProduct(new StringBuilder(), product));
+            }
+        }else if(path.length == 2 && "build".equals(path[1]) && "POST".equals(method)){
+            product = Inventory.buildProduct(id, intOf(Json.parseObject(readBody(exchange)), "quantity",
+                    "Please enter a number in the quantity field"));
+            send(exchange, 200, appendProduct(new StringBuilder(), product));
+        }else if(path.length != 1){
+            sendError(exchange, 404, "Unknown path " + exchange.getRequestURI().getPath());
+        }else if("GET".equals(method)){
+            send(exchange, 200, appendProduct(new StringBuilder(), product));
+        }else if("PUT".equals(method)){
+            Product changed = newProduct(Json.parseObject(readBody(exchange)), () -> id);
+            Inventory.updateProduct(-1, product, changed.getName(), changed.getPriceCents(), changed.getStock(), changed.getMin(),
+                    changed.getMax(), changed.getAssociatedParts());
+            send(exchange, 200, appendProduct(new StringBuilder(), product));
+        }else if("DELETE".equals(method)){
+            if(Inventory.deleteProduct(product)){
+                send(exchange, 204, null);
+            }else{
+                sendError(exchange, 404, "Product " + id + " does not exist");
+            }
+        }else{
+            sendError(exchange, 405, "Method " + method + " is not allowed");
+        }
+    }
+
+    /**
+     * Method answers the requests under /reorders.
+     */
+    private void handleReorders(HttpExchange exchange) throws IOException {
+        if(pathOf(exchange, "/reorders").length > 0){
+            sendError(exchange, 404, "Unknown path " + exchange.getRequestURI().getPath());
+            return;
+        }
+        if(!"GET".equals(exchange.getRequestMethod())){
+            sendError(exchange, 405, "Method " + exchange.getRequestMethod() + " is not allowed");
+            return;
+        }
+        StringBuilder body = new StringBuilder("[");
+        for(ReorderMonitor.Suggestion suggestion: reorders.mostUrgent(limitOf(queryOf(exchange)))){
+            if(body.length() > 1){
+                body.append(',');
+            }
+            body.append("{\"type\":\"").append(suggestion.isPart() ? "part" : "product").append("\",\"id\":").append(suggestion.getId());
+            body.append(",\"name\":");
+            Json.appendString(body, suggestion.getName());
+            body.append(",\"stock\":").append(suggestion.getStock()).append(",\"min\":").append(suggestion.getMin());
+            body.append(",\"max\":").append(suggestion.getMax()).append(",\"order\":").append(suggestion.getReorderQuantity()).append('}');
+        }
+        send(exchange, 200, body.append(']'));
+    }
+
+    /**
+     * Method creates a part from a request body with the same rules as the part screens.
+     *
+     * The id is only taken once every field is valid, so a request that is not valid does not use up an id.
+     *
+     * @param fields Fields of the body.
+     * @param id Gives the id of the part.
+     * @return a new InHouse or OutSourced part.
+     * @throws IllegalArgumentException if a field is missing or not valid.
+     */
+    private static Part newPart(Map<String, Object> fields, IntSupplier id){
+        String type = textOf(fields, "type", "Please enter inhouse or outsourced in the type field");
+        InputValidator input = new InputValidator();
+        InputValidator.require(input.checkPart(fieldOf(fields, "name"), fieldOf(fields, "price"), fieldOf(fields, "stock"),
+                fieldOf(fields, "min"), fieldOf(fields, "max")));
+        if("inhouse".equalsIgnoreCase(type)){
+            InputValidator.require(input.checkMachineId(fieldOf(fields, "machineId")));
+            return input.newInHouse(id.getAsInt());
+        }
+        if("outsourced".equalsIgnoreCase(type)){
+            InputValidator.require(input.checkCompanyName(fieldOf(fields, "companyName")));
+            return input.newOutSourced(id.getAsInt());
+        }
+        throw new IllegalArgumentException("Please enter inhouse or outsourced in the type field");
+    }
+
+    /**
+     * Method creates a product from a request body with the same rules as the product screens.
+     *
+     * The id is only taken once every field is valid, so a request that is not valid does not use up an id.
+     *
+     * @param fields Fields of the body.
+     * @param id Gives the id of the product.
+     * @return a new Product with its associated parts.
+     * @throws IllegalArgumentException if a field is missing or not valid, or an associated part does not exist.
+     */
+    private static Product newProduct(Map<String, Object> fields, IntSupplier id){
+        InputValidator input = new InputValidator();
+        InputValidator.require(input.checkProduct(fieldOf(fields, "name"), fieldOf(fields, "price"), fieldOf(fields, "stock"),
+                fieldOf(fields, "min"), fieldOf(fields, "max")));
+        ObservableList<Part> parts = FXCollections.observableArrayList();
+        Object ids = fields.get("parts");
+        if(ids != null){
+            if(!(ids instanceof List)){
+                throw new IllegalArgumentException("Parts must be a list of part ids");
+            }
+            for(Object partId: (List<?>) ids){
+                if(!(partId instanceof BigDecimal)){
+                    throw new IllegalArgumentException("Parts must be a list of part ids");
+                }
+                Part part = Inventory.lookupPart(exactInt((BigDecimal) partId, "Parts must be a list of part ids"));
+                if(part == null){
+                    throw new IllegalArgumentException("Part " + partId + " does not exist");
+                }
+                parts.add(part);
+            }
+        }
+        return input.newProduct(id.getAsInt(), parts);
+    }
+
+    private static String textOf(Map<String, Object> fields, String field, String message){
+        Object value = fields.get(field);
+        if(!(value instanceof String) || ((String) value).trim().isEmpty()){
+            throw new IllegalArgumentException(message);
+        }
+        return ((String) value).trim();
+    }
+
+    /**
+     * @param fields Fields of the body.
+     * @param field Name of the field.
+     * @return the text of a string field or a number written out in full, to be checked by the InputValidator, or null for any other
+     *         value. A number that would take more than MAX_DIGITS digits is answered as an empty field, which is not valid.
+     */
+    private static String fieldOf(Map<String, Object> fields, String field){
+        Object value = fields.get(field);
+        if(value instanceof BigDecimal){
+            BigDecimal number = (BigDecimal) value;
+            // the exponent is checked before the number is written out, so its length cannot be chosen by the client
+            if(number.scale() < -MAX_DIGITS || number.scale() > MAX_DIGITS || number.precision() - number.scale() > MAX_DIGITS){
+                return "";
+            }
+            return number.toPlainString();
+        }
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static int intOf(Map<String, Object> fields, String field, String message){
+        Object value = fields.get(field);
+        if(!(value instanceof BigDecimal)){
+            throw new IllegalArgumentException(message);
+        }
+        return exactInt((BigDecimal) value, message);
+    }
+
+    private static int exactInt(BigDecimal value, String message){
+        try{
+            return value.intValueExact();
+        }catch (ArithmeticException e){
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * @param exchange Request.
+     * @param context Path of the context.
+     * @return the parts of the path after the context, without empty parts.
+     */
+    private static String[] pathOf(HttpExchange exchange, String context){
+        String rest = exchange.getRequestURI().getPath().substring(context.length());
+        return Arrays.stream(rest.split("/")).filter(part -> !part.isEmpty()).toArray(String[]::new);
+    }
+
+    private static int idOf(String text){
+        try{
+            return Integer.parseInt(text);
+        }catch (NumberFormatException e){
+            throw new IllegalArgumentException("Id " + text + " is not a number");
+        }
+    }
+
+    private static Map<String, String> queryOf(HttpExchange exchange){
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if(raw == null){
+            return query;
+        }
+        for(String pair: raw.split("&")){
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static int limitOf(Map<String, String> query){
+        String limit = query.get("limit");
+        if(limit == null){
+            return DEFAULT_LIMIT;
+        }
+        try{
+            int value = Integer.parseInt(limit);
+            if(value >= 0){
+                return value;
+            }
+        }catch (NumberFormatException e){
+            // answered below
+        }
+        throw new IllegalArgumentException("Limit must be a number of zero or more");
+    }
+
+    /**
+     * @param ids Ids found by a search.
+     * @param limit Most ids returned.
+     * @return the smallest ids, in increasing order.
+     */
+    private static int[] firstIds(Set<Integer> ids, int limit){
+        int[] sorted = new int[ids.size()];
+        int count = 0;
+        for(Integer id: ids){
+            sorted[count++] = id;
+        }
+        Arrays.sort(sorted);
+        return count > limit ? Arrays.copyOf(sorted, limit) : sorted;
+    }
+
+    private static StringBuilder appendPart(StringBuilder body, Part live){
+        // the fields are read from one copy, so a part changed by another request is written with the fields of a single change
+        Part part = live.copy();
+        boolean inHouse = part instanceof InHouse;
+        body.append("{\"type\":\"").append(inHouse ? "inhouse" : "outsourced").append("\",\"id\":").append(part.getId()).append(",\"name\":");
+        Json.appendString(body, part.getName());
+        Money.append(body.append(",\"price\":"), part.getPriceCents()).append(",\"stock\":").append(part.getStock());
+        body.append(",\"min\":").append(part.getMin()).append(",\"max\":").append(part.getMax());
+        if(inHouse){
+            body.append(",\"machineId\":").append(((InHouse) part).getMachineId());
+        }else{
+            body.append(",\"companyName\":");
+            Json.appendString(body, ((OutSourced) part).getCompanyName());
+        }
+        return body.append('}');
+    }
+
+    private static StringBuilder appendProduct(StringBuilder body, Product live){
+        Product product = live.copy();
+        body.append("{\"id\":").append(product.getId()).append(",\"name\":");
+        Json.appendString(body, product.getName());
+        Money.append(body.append(",\"price\":"), product.getPriceCents()).append(",\"stock\":").append(product.getStock());
+        body.append(",\"min\":").append(product.getMin()).append(",\"max\":").append(product.getMax());
+        Money.append(body.append(",\"materialCost\":"), Inventory.getMaterialCost(live)).append(",\"parts\":[");
+        Object[] parts = product.getAssociatedParts().toArray();
+        for(int i = 0; i < parts.length; i++){
+            if(i > 0){
+                body.append(',');
+            }
+            body.append(((Part) parts[i]).getId());
+        }
+        return body.append("]}");
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try(InputStream in = exchange.getRequestBody()){
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Method answers a request with an error. If the headers were already sent, the exchange is only closed.
+     *
+     * @param exchange Request being answered.
+     * @param status HTTP status code.
+     * @param message Message of the error.
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        if(exchange.getResponseCode() != -1){
+            exchange.close();
+            return;
+        }
+        send(exchange, status, Json.appendString(new StringBuilder("{\"error\":"), message).append('}'));
+    }
+
+    /**
+     * Method answers a request and closes the exchange.
+     *
+     * @param exchange Request being answered.
+     * @param status HTTP status code.
+     * @param body JSON body, or null for no body.
+     */
+    private static void send(HttpExchange exchange, int status, CharSequence body) throws IOException {
+        try{
+            exchange.getRequestBody().close();
+            if(body == null){
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try(OutputStream out = exchange.getResponseBody()){
+                out.write(bytes);
+            }
+        }finally{
+            exchange.close();
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package main;
 
 import javafx.application.Application;
+import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
-import javafx.stage.Stage;
 import model.*;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
 // Javadoc folder located in the project folder.
 
 /**
@@ -33,48 +36,106 @@ import model.*;
  *
  * @author José L Dávila Montalvo
  */
-public class Main extends Application {
-    @Override
-    public void start(Stage stage) throws Exception {
-        Parent root = FXMLLoader.load(getClass().getResource("/view/Main_Screen.fxml"));
-        stage.setTitle("");
-        stage.setScene(new Scene(root, 1070, 400));
-        stage.show();
+public class Main {
+
+    /**
+     * Main method loads the saved inventory. The first time the program runs, part objects and product objects are added manually for testing.
+     * Every stock movement is also recorded in a ledger in the same folder, which is written before the saved inventory, and the stock
+     * replayed from the ledger wins over the stock of the saved inventory unless it is outside the min/max range.
+     * The folder where the inventory is saved can be changed with the inventory.data system property, and the inventory.columnar
+     * system property keeps the fields of every part in columns. Parts and products can be loaded from a CSV file with
+     * the --import file argument, and the whole inventory can be written to a CSV or JSON lines file with the --export file argument.
+     * The --fast-start argument loads the other screens in the background once the main window is showing, and the
+     * inventory.startup.times system property prints how long the program took to show and to be ready. The inventory.partstore
+     * system property also keeps a copy of the parts in a parts.store file in the same folder, which the parts table pages through.
+     * The --server [port] argument serves the inventory as JSON over HTTP instead of showing the screens. The server only answers
+     * programs on the same computer unless the inventory.address system property gives the address to listen on, like 0.0.0.0.
+     *
+     * @throws IOException if the saved inventory cannot be opened.
+     */
+    public static void main(String[] args) throws IOException {
+
+        if(Boolean.getBoolean("inventory.columnar")){
+            Inventory.useColumnarStorage();
+        }
+
+        Path data = Paths.get(System.getProperty("inventory.data", "data"));
+        InventoryLog log = InventoryLog.open(data);
+
+        // the ledger is opened before the test data is added, so the stock of the test data is recorded as it is added
+        StockLedger ledger = StockLedger.open(data);
+        log.writeAfter(ledger);
+        ledger.getProblems().forEach(System.out::println);
+        if(log.isNew()){
+            addTestData();
+        }
+
+        // --import file.csv loads a supplier catalog before the program starts
+        for(int i = 0; i + 1 < args.length; i++){
+            if("--import".equals(args[i])){
+                ImportReport report = new CsvImporter().importFile(Paths.get(args[i + 1]));
+                System.out.println(report);
+                report.getErrors().forEach(System.out::println);
+            }
+        }
+
+        // --export file.csv or file.jsonl writes the whole inventory, for example for a nightly reconciliation
+        for(int i = 0; i + 1 < args.length; i++){
+            if("--export".equals(args[i])){
+                Path file = Paths.get(args[i + 1]);
+                long rows = new InventoryExporter(InventoryExporter.Format.of(file)).exportFile(file);
+                System.out.println("Exported " + rows + " parts and products to " + file);
+            }
+        }
+
+        // --server [port] answers the JSON API for scanners without starting the screens
+        int server = Arrays.asList(args).indexOf("--server");
+        if(server >= 0){
+            int port = InventoryServer.DEFAULT_PORT;
+            if(server + 1 < args.length && !args[server + 1].startsWith("--")){
+                port = Integer.parseInt(args[server + 1]);
+            }
+            String address = System.getProperty("inventory.address");
+            InventoryServer inventoryServer = address == null ? new InventoryServer(port)
+                    : new InventoryServer(new InetSocketAddress(address, port));
+            inventoryServer.start();
+            System.out.println("Inventory API listening on " + (address == null ? "localhost" : address) + " port " + inventoryServer.getPort());
+            return;
+        }
+
+        // the parts table can page through a store file that keeps a copy of every part
+        if(Boolean.getBoolean("inventory.partstore")){
+            Inventory.usePartStore(data.resolve("parts.store"));
+        }
+
+        InventoryApp.fastStart = Arrays.asList(args).contains("--fast-start");
+
+        Application.launch(InventoryApp.class, args);
     }
 
     /**
-     * Main method used to manually add part objects and product objects for testing
+     * Method used to manually add part objects and product objects for testing
      */
-    public static void main(String[] args) {
+    private static void addTestData() {
 
-        InHouse part1 = new InHouse(Inventory.incrementPartId(), "Garret Turbo", 500.00, 5, 1, 10, 44567);
+        InHouse part1 = new InHouse(Inventory.incrementPartId(), "Garret Turbo", Money.of(500.00), 5, 1, 10, 44567);
         Inventory.addPart(part1);
-        InHouse part2 = new InHouse(Inventory.incrementPartId(), "1JZ", 10000, 3, 1, 4, 44568);
+        InHouse part2 = new InHouse(Inventory.incrementPartId(), "1JZ", Money.of(10000), 3, 1, 4, 44568);
         Inventory.addPart(part2);
-        InHouse part3 = new InHouse(Inventory.incrementPartId(), "HKS Springs", 1500.00, 6, 1, 10, 44569);
+        InHouse part3 = new InHouse(Inventory.incrementPartId(), "HKS Springs", Money.of(1500.00), 6, 1, 10, 44569);
         Inventory.addPart(part3);
-        OutSourced part4 = new OutSourced(Inventory.incrementPartId(), "AWE Catback", 700.00, 9, 1, 10, "AWE");
+        OutSourced part4 = new OutSourced(Inventory.incrementPartId(), "AWE Catback", Money.of(700.00), 9, 1, 10, "AWE");
         Inventory.addPart(part4);
-        OutSourced part5 = new OutSourced(Inventory.incrementPartId(), "S20", 15000.00, 1, 1, 10, "Nissan");
+        OutSourced part5 = new OutSourced(Inventory.incrementPartId(), "S20", Money.of(15000.00), 1, 1, 10, "Nissan");
         Inventory.addPart(part5);
 
-        ObservableList<Part> testList1;
-
-        Product.addAssociatedPart(part1);
-
-        testList1 = Product.getAllAssociatedParts();
+        ObservableList<Part> testList1 = FXCollections.observableArrayList(part1);
 
-        Product product1 = new Product(Inventory.incrementProdId(), "S15", 45000, 2, 1, 4, testList1);
+        Product product1 = new Product(Inventory.incrementProdId(), "S15", Money.of(45000), 2, 1, 4, testList1);
         Inventory.addProduct(product1);
-        Product product2 = new Product(Inventory.incrementProdId(), "GTI", 29000, 5, 1, 8, testList1);
+        Product product2 = new Product(Inventory.incrementProdId(), "GTI", Money.of(29000), 5, 1, 8, testList1);
         Inventory.addProduct(product2);
-        Product product3 = new Product(Inventory.incrementProdId(), "R32", 60000, 1, 1, 3, testList1);
+        Product product3 = new Product(Inventory.incrementProdId(), "R32", Money.of(60000), 1, 1, 3, testList1);
         Inventory.addProduct(product3);
-
-        Product.clearAssociatedParts();
-
-        launch(args);
     }
 }
-
-
@@ -0,0 +1,94 @@
+package model;
+
+import javafx.collections.ModifiableObservableListBase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BatchList class is the observable list used by the Inventory for all parts and all products.
+ * It works like the list returned by FXCollections.observableArrayList, and can also group any number of changes into a single change
+ * event. Filtered lists, sorted lists and tableviews bound to it then refresh once per batch instead of once per changed element.
+ *
+ * @param <E> Part or Product
+ *
+ * @author José L Dávila Montalvo
+ */
+public class BatchList<E> extends ModifiableObservableListBase<E> {
+
+    /**
+     * Elements of the list.
+     */
+    private final List<E> elements = new ArrayList<>();
+
+    /**
+     * Method runs a group of changes and fires a single change event when they are done.
+     * Batches can be nested, the event is fired when the outermost batch ends.
+     *
+     * @param changes Changes to make to the list.
+     */
+    public void batch(Runnable changes){
+        beginChange();
+        try{
+            changes.run();
+        }finally{
+            endChange();
+        }
+    }
+
+    /**
+     * Method removes the elements at several positions in one pass and fires a single change event. The other elements keep their
+     * order, every element after the first removed one moves up once instead of once per removed element.
+     *
+     * @param positions Positions of the elements to remove, in increasing order.
+     * @param count Number of positions used from the array.
+     */
+    public void removePositions(int[] positions, int count){
+        if(count == 0){
+            return;
+        }
+        beginChange();
+        try{
+            int kept = positions[0];
+            int next = 0;
+            for(int i = positions[0]; i < elements.size(); i++){
+                if(next < count && positions[next] == i){
+                    // the index of a removal is its position once the earlier removals are done
+                    nextRemove(kept, elements.get(i));
+                    next++;
+                }else{
+                    elements.set(kept++, elements.get(i));
+                }
+            }
+            elements.subList(kept, elements.size()).clear();
+            modCount++;
+        }finally{
+            endChange();
+        }
+    }
+
+    @Override
+    public E get(int index){
+        return elements.get(index);
+    }
+
+    @Override
+    public int size(){
+        return elements.size();
+    }
+
+    @Override
+    protected void doAdd(int index, E element){
+        elements.add(index, element);
+    }
+
+    @Override
+    protected E doSet(int index, E element){
+        return elements.set(index, element);
+    }
+
+    @Override
+    protected E doRemove(int index){
+        return elements.remove(index);
+    }
+}
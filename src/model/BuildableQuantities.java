@@ -0,0 +1,88 @@
+package model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * BuildableQuantities class that keeps how many units of each product can be built from the stock of its associated parts.
+ * A part listed twice in the associated parts of a product takes two units of its stock for every unit of the product, and a product
+ * without associated parts cannot be built. Building never takes the stock of a part below its min, the same rule the Inventory uses
+ * when a product is built.
+ * <p>
+ * The quantity of every product in the inventory is kept, so reading it is a single map lookup. When the stock of a part changes
+ * the Inventory updates only the products that use the part, found through the where used index.
+ * </p>
+ *
+ * @author José L Dávila Montalvo
+ */
+public class BuildableQuantities {
+
+    /**
+     * Buildable quantity of every product in the inventory by product id.
+     */
+    private final Map<Integer, Integer> quantities = new ConcurrentHashMap<>();
+
+    /**
+     * @param productId Id of the product.
+     * @return the number of units that can be built, 0 if the product is not known.
+     */
+    public int get(int productId){
+        Integer quantity = quantities.get(productId);
+        return quantity == null ? 0 : quantity;
+    }
+
+    /**
+     * Method computes the buildable quantity of a product again. Must be called while the product is locked.
+     *
+     * @param product Product in the inventory.
+     * @return true if the quantity changed.
+     */
+    boolean update(Product product){
+        int quantity = compute(product);
+        Integer previous = quantities.put(product.getId(), quantity);
+        return previous == null || previous != quantity;
+    }
+
+    /**
+     * Method forgets a deleted product.
+     *
+     * @param productId Id of the product.
+     */
+    void remove(int productId){
+        quantities.remove(productId);
+    }
+
+    /**
+     * @param product Product object.
+     * @return the number of units of the product that the stock of its associated parts is enough for.
+     */
+    static int compute(Product product){
+        Object[] parts = product.getAssociatedParts().toArray();
+        if(parts.length == 0){
+            return 0;
+        }
+        Map<Part, Integer> needed = new HashMap<>();
+        for(Object part: parts){
+            needed.merge((Part) part, 1, Integer::sum);
+        }
+        int quantity = Integer.MAX_VALUE;
+        for(Map.Entry<Part, Integer> entry: needed.entrySet()){
+            Part part = entry.getKey();
+            quantity = Math.min(quantity, unitsFrom(part.getStock(), part.getMin(), entry.getValue()));
+        }
+        return quantity;
+    }
+
+    /**
+     * Method gives the number of units of a product that the stock of one part is enough for, keeping the stock at or above its min.
+     *
+     * @param stock Stock of the part.
+     * @param min Min of the part.
+     * @param needed Units of the part taken by one unit of the product.
+     * @return (stock - min) / needed, or 0 if the stock is at or below the min.
+     */
+    static int unitsFrom(int stock, int min, int needed){
+        return (int) (Math.max(0L, (long) stock - min) / needed);
+    }
+}
@@ -0,0 +1,84 @@
+package model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CostRollup class that adds up the material cost of each product from the prices of its associated parts.
+ * A part listed twice in the associated parts of a product is counted twice. Costs are kept in cents, so they are exact.
+ * <p>
+ * Costs are computed the first time they are asked for and kept until something they depend on changes. When the price of a part
+ * changes only the products that use the part are dropped, found through the where used index, and they are computed again the next
+ * time they are asked for. The rest of the catalog keeps its costs.
+ * </p>
+ *
+ * @author José L Dávila Montalvo
+ */
+public class CostRollup {
+
+    /**
+     * Private properties of the rollup.
+     */
+    private final WhereUsedIndex whereUsed;
+    private final Map<Integer, Long> costs = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for a rollup.
+     *
+     * @param whereUsed Index used to find the products of a part whose price changed.
+     */
+    public CostRollup(WhereUsedIndex whereUsed){
+        this.whereUsed = whereUsed;
+    }
+
+    /**
+     * Method returns the material cost of a product in the inventory, computing it only if it is not known.
+     *
+     * @param product Product in the inventory.
+     * @return the sum of the prices of the associated parts in cents.
+     */
+    public long materialCost(Product product){
+        // a change made while the cost is computed waits for it and then drops it, so a stale cost is never kept
+        return costs.computeIfAbsent(product.getId(), id -> sum(product));
+    }
+
+    /**
+     * Method drops the costs of the products that use a part, called when the price of the part changes.
+     *
+     * @param partId Id of the part.
+     */
+    public void partPriceChanged(int partId){
+        for(Integer productId: whereUsed.productsUsing(partId)){
+            costs.remove(productId);
+        }
+    }
+
+    /**
+     * Method drops the cost of a product, called when the product is added, deleted or its associated parts change.
+     *
+     * @param productId Id of the product.
+     */
+    public void productChanged(int productId){
+        costs.remove(productId);
+    }
+
+    /**
+     * @return the number of products whose cost is known.
+     */
+    public int getCachedCount(){
+        return costs.size();
+    }
+
+    /**
+     * @param product Product object.
+     * @return the sum of the prices of the associated parts in cents.
+     * @throws ArithmeticException if the sum does not fit in a long.
+     */
+    static long sum(Product product){
+        long cost = 0;
+        for(Object part: product.getAssociatedParts().toArray()){
+            cost = Money.add(cost, ((Part) part).getPriceCents());
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,83 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Csv class with the comma separated values rules shared by the importer and the exporter.
+ * Fields are separated by commas. A field that contains a comma, a quote or a line break is written between double quotes and quotes
+ * inside it are doubled.
+ *
+ * @author José L Dávila Montalvo
+ */
+public final class Csv {
+
+    private Csv(){
+    }
+
+    /**
+     * Method splits one line into its fields.
+     *
+     * @param line Line without the line break.
+     * @return the fields of the line.
+     */
+    public static List<String> split(String line){
+        List<String> fields = new ArrayList<>(8);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for(int i = 0; i < line.length(); i++){
+            char c = line.charAt(i);
+            if(quoted){
+                if(c == '"'){
+                    if(i + 1 < line.length() && line.charAt(i + 1) == '"'){
+                        field.append('"');
+                        i++;
+                    }else{
+                        quoted = false;
+                    }
+                }else{
+                    field.append(c);
+                }
+            }else if(c == '"'){
+                quoted = true;
+            }else if(c == ','){
+                fields.add(field.toString());
+                field.setLength(0);
+            }else{
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Method appends one field to a line, with quotes if the value needs them.
+     *
+     * @param line Line being built.
+     * @param value Value of the field.
+     * @return the line being built.
+     */
+    public static StringBuilder appendField(StringBuilder line, String value){
+        if(value == null){
+            return line;
+        }
+        boolean needsQuotes = false;
+        for(int i = 0; i < value.length() && !needsQuotes; i++){
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if(!needsQuotes){
+            return line.append(value);
+        }
+        line.append('"');
+        for(int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            if(c == '"'){
+                line.append('"');
+            }
+            line.append(c);
+        }
+        return line.append('"');
+    }
+}
@@ -0,0 +1,385 @@
+package model;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.IntStream;
+
+/**
+ * CsvImporter class that loads parts and products from a comma separated values file into the Inventory.
+ * <p>
+ * Each row starts with its type followed by the fields of the part or product:
+ * inhouse,name,price,stock,min,max,machineId
+ * outsourced,name,price,stock,min,max,companyName
+ * product,name,price,stock,min,max,partIds (ids of existing parts separated by semicolons, may be empty)
+ * A first row that starts with "type" is treated as a header. Empty rows and rows starting with # are skipped. A quoted field can hold
+ * line breaks, like the names written by the InventoryExporter, and the row then goes on over the next lines of the file.
+ * </p>
+ * <p>
+ * Rows may also have an id after the type, like the files written by the InventoryExporter. Parts still get new ids, and the part ids
+ * of a product row refer to the id column of the part rows found earlier in the same file, or to parts already in the Inventory
+ * when no row of the file has that id. An exported file can so be imported again with every product linked to the same parts.
+ * </p>
+ * <p>
+ * The file is streamed through a FileChannel and decoded in large blocks, so memory use does not depend on the size of the file.
+ * Rows are read in batches. The rows of a batch are validated in parallel by the InputValidator the part and product screens use,
+ * the batch leases a block of ids and is added to the Inventory with one change event. A bad row is reported and skipped without
+ * stopping the import.
+ * </p>
+ *
+ * @author José L Dávila Montalvo
+ */
+public class CsvImporter {
+
+    /**
+     * Default number of rows validated and added together.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 16_384;
+
+    /**
+     * Row id of the rows written without an id column.
+     */
+    private static final int NO_ID = -1;
+
+    /**
+     * Validator of each thread that parses rows, reused for every row it parses.
+     */
+    private static final ThreadLocal<InputValidator> VALIDATORS = ThreadLocal.withInitial(InputValidator::new);
+
+    /**
+     * Private properties of the importer.
+     */
+    private final int batchSize;
+    private final Executor inserter;
+
+    /**
+     * Constructor for an importer that adds each batch on the calling thread.
+     */
+    public CsvImporter(){
+        this(DEFAULT_BATCH_SIZE, Runnable::run);
+    }
+
+    /**
+     * Constructor for an importer.
+     *
+     * @param batchSize Number of rows validated and added together.
+     * @param inserter Executor that adds each batch to the Inventory, for example Platform::runLater when tables are showing the
+     *                 Inventory. The importer waits for each batch to be added before it reads the next one.
+     */
+    public CsvImporter(int batchSize, Executor inserter){
+        if(batchSize < 1){
+            throw new IllegalArgumentException("Batch size must be at least one");
+        }
+        this.batchSize = batchSize;
+        this.inserter = inserter;
+    }
+
+    /**
+     * Method imports every row of a file.
+     *
+     * @param file CSV file to import.
+     * @return report with the number of rows imported, the throughput and the rejected rows.
+     * @throws IOException if the file cannot be read.
+     */
+    public ImportReport importFile(Path file) throws IOException {
+        ImportReport report = new ImportReport();
+        long start = System.nanoTime();
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            LineReader reader = new LineReader(channel);
+            Map<Integer, Integer> importedIds = new HashMap<>();
+            List<String> lines = new ArrayList<>(batchSize);
+            long[] lineNumbers = new long[batchSize];
+            String line;
+            while((line = reader.readLine()) != null){
+                if(reader.getLineNumber() == 1 && line.regionMatches(true, 0, "type", 0, 4)){
+                    continue;
+                }
+                lineNumbers[lines.size()] = reader.getLineNumber();
+                lines.add(line);
+                if(lines.size() == batchSize){
+                    importBatch(lines, lineNumbers, importedIds, report);
+                    lines.clear();
+                }
+            }
+            if(!lines.isEmpty()){
+                importBatch(lines, lineNumbers, importedIds, report);
+            }
+        }
+
+        report.setElapsedNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    /**
+     * Method validates a batch of rows in parallel and adds the valid rows to the Inventory.
+     *
+     * @param lines Rows of the batch.
+     * @param lineNumbers Line number of the file where each row of the batch starts.
+     * @param importedIds New id of every part imported so far by the id written in its row.
+     * @param report Report being filled.
+     */
+    private void importBatch(List<String> lines, long[] lineNumbers, Map<Integer, Integer> importedIds, ImportReport report){
+        int size = lines.size();
+        Object[] rows = new Object[size];
+        int[] rowIds = new int[size];
+
+        // a row is parsed into a Part, a ProductRow, a String with the reason it was rejected, or null if it is skipped
+        IntStream.range(0, size).parallel().forEach(i -> rows[i] = parse(lines.get(i), rowIds, i));
+
+        int partCount = 0;
+        int productCount = 0;
+        for(int i = 0; i < size; i++){
+            if(rows[i] instanceof Part){
+                partCount++;
+            }else if(rows[i] instanceof ProductRow){
+                productCount++;
+            }
+        }
+
+        int nextPartId = partCount > 0 ? Inventory.getPartIds().lease(partCount) : 0;
+        int nextProductId = productCount > 0 ? Inventory.getProductIds().lease(productCount) : 0;
+        int[] added = new int[2];
+
+        Runnable insert = () -> Inventory.batchUpdate(() -> {
+            int partId = nextPartId;
+            int productId = nextProductId;
+            for(int i = 0; i < size; i++){
+                Object row = rows[i];
+                if(rowIds[i] != NO_ID && !(row instanceof Part)){
+                    // products of the file that use a rejected part are rejected too, instead of using a part of the Inventory
+                    importedIds.put(rowIds[i], NO_ID);
+                }
+                if(row instanceof Part){
+                    Part part = (Part) row;
+                    part.setId(partId++);
+                    Inventory.addPart(part);
+                    if(rowIds[i] != NO_ID){
+                        importedIds.put(rowIds[i], part.getId());
+                    }
+                    added[0]++;
+                }else if(row instanceof ProductRow){
+                    ProductRow productRow = (ProductRow) row;
+                    ObservableList<Part> parts = FXCollections.observableArrayList();
+                    String missing = null;
+                    for(int id: productRow.partIds){
+                        Part part = Inventory.lookupPart(importedIds.getOrDefault(id, id));
+                        if(part == null){
+                            missing = "Part " + id + " does not exist";
+                            break;
+                        }
+                        parts.add(part);
+                    }
+                    if(missing != null){
+                        rows[i] = missing;
+                        continue;
+                    }
+                    Inventory.addProduct(new Product(productId++, productRow.name, productRow.price, productRow.stock, productRow.min,
+                            productRow.max, parts));
+                    added[1]++;
+                }
+            }
+        });
+        CompletableFuture.runAsync(insert, inserter).join();
+
+        report.addRowsRead(size);
+        report.addPartsImported(added[0]);
+        report.addProductsImported(added[1]);
+        for(int i = 0; i < size; i++){
+            if(rows[i] instanceof String){
+                report.reject(lineNumbers[i], (String) rows[i]);
+            }
+        }
+    }
+
+    /**
+     * Method validates one row with the same rules as the part and product screens.
+     *
+     * @param line Row of the file, which may hold line breaks inside quoted fields.
+     * @param rowIds Ids written in the part rows of the batch, set to NO_ID when the row has no id column or is not a part.
+     * @param row Position of the row in the batch.
+     * @return a Part with id 0, a ProductRow, the reason the row was rejected, or null if the row is skipped.
+     */
+    private static Object parse(String line, int[] rowIds, int row){
+        rowIds[row] = NO_ID;
+        if(line.isEmpty() || line.charAt(0) == '#'){
+            return null;
+        }
+        List<String> fields = Csv.split(line);
+        if(fields.size() != 7 && fields.size() != 8){
+            return "Expected 7 or 8 fields but found " + fields.size();
+        }
+
+        String type = fields.get(0).trim();
+        boolean product = "product".equalsIgnoreCase(type);
+
+        // the id column written by the InventoryExporter comes right after the type, only the ids of parts are referred to
+        int first = fields.size() - 6;
+        if(first == 2){
+            int id;
+            try{
+                id = Integer.parseInt(fields.get(1).trim());
+            }catch (NumberFormatException e){
+                return "Id must be a number";
+            }
+            if(!product){
+                rowIds[row] = id;
+            }
+        }
+        InputValidator input = VALIDATORS.get();
+        String error = product
+                ? input.checkProduct(fields.get(first), fields.get(first + 1), fields.get(first + 2), fields.get(first + 3), fields.get(first + 4))
+                : input.checkPart(fields.get(first), fields.get(first + 1), fields.get(first + 2), fields.get(first + 3), fields.get(first + 4));
+        if(error != null){
+            return error;
+        }
+
+        String extra = fields.get(first + 5).trim();
+        if("inhouse".equalsIgnoreCase(type)){
+            error = input.checkMachineId(extra);
+            return error != null ? error : input.newInHouse(0);
+        }
+        if("outsourced".equalsIgnoreCase(type)){
+            error = input.checkCompanyName(extra);
+            return error != null ? error : input.newOutSourced(0);
+        }
+        if(product){
+            String[] ids = extra.isEmpty() ? new String[0] : extra.split(";");
+            int[] partIds = new int[ids.length];
+            try{
+                for(int i = 0; i < ids.length; i++){
+                    partIds[i] = Integer.parseInt(ids[i].trim());
+                }
+            }catch (NumberFormatException e){
+                return "Part ids must be numbers separated by semicolons";
+            }
+            return new ProductRow(input.getName(), input.getPrice(), input.getStock(), input.getMin(), input.getMax(), partIds);
+        }
+        return "Unknown row type " + type;
+    }
+
+    /**
+     * Valid product row waiting for its associated parts to be found in the Inventory.
+     */
+    private static class ProductRow {
+        private final String name;
+        private final long price;
+        private final int stock;
+        private final int min;
+        private final int max;
+        private final int[] partIds;
+
+        ProductRow(String name, long price, int stock, int min, int max, int[] partIds){
+            this.name = name;
+            this.price = price;
+            this.stock = stock;
+            this.min = min;
+            this.max = max;
+            this.partIds = partIds;
+        }
+    }
+
+    /**
+     * Reads rows from a file channel, decoding the UTF-8 bytes in large blocks. A line break inside a quoted field belongs to the row,
+     * quotes doubled inside a field open and close the field again so they do not change where the row ends.
+     */
+    private static class LineReader {
+
+        private static final int BLOCK_SIZE = 1 << 20;
+
+        private final FileChannel channel;
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(BLOCK_SIZE);
+        private final CharBuffer chars = CharBuffer.allocate(BLOCK_SIZE);
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final StringBuilder line = new StringBuilder(128);
+        private boolean endOfFile;
+        private boolean quoted;
+        private long lines;
+        private long rowLine;
+
+        LineReader(FileChannel channel){
+            this.channel = channel;
+            chars.flip();
+        }
+
+        /**
+         * @return the next row without the line break, or null at the end of the file.
+         * @throws IOException if the file cannot be read.
+         */
+        String readLine() throws IOException {
+            rowLine = lines + 1;
+            while(true){
+                while(chars.hasRemaining()){
+                    char c = chars.get();
+                    if(c == '\n'){
+                        lines++;
+                        if(!quoted){
+                            return takeLine();
+                        }
+                    }else if(c == '"'){
+                        quoted = !quoted;
+                    }
+                    line.append(c);
+                }
+                if(endOfFile){
+                    return line.length() > 0 ? takeLine() : null;
+                }
+                fill();
+            }
+        }
+
+        /**
+         * @return the line number of the file where the last row returned by readLine starts.
+         */
+        long getLineNumber(){
+            return rowLine;
+        }
+
+        /**
+         * Method reads the next block of the file and decodes it.
+         */
+        private void fill() throws IOException {
+            chars.clear();
+            if(channel.read(bytes) < 0){
+                endOfFile = true;
+            }
+            bytes.flip();
+            decoder.decode(bytes, chars, endOfFile);
+            if(endOfFile){
+                decoder.flush(chars);
+            }
+            bytes.compact();
+            chars.flip();
+        }
+
+        /**
+         * @return the current line without a trailing carriage return.
+         */
+        private String takeLine(){
+            int length = line.length();
+            if(length > 0 && line.charAt(length - 1) == '\r'){
+                length--;
+            }
+            String text = line.substring(0, length);
+            line.setLength(0);
+            return text;
+        }
+    }
+}
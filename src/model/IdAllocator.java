@@ -0,0 +1,69 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * IdAllocator class that hands out id numbers for parts or products.
+ * Ids only go up and are never handed out twice, even after the object that used an id is deleted. Allocation uses an atomic counter,
+ * so threads saving at the same time never get the same id and never wait on a lock. Bulk writers can lease a block of ids at once.
+ *
+ * @author José L Dávila Montalvo
+ */
+public class IdAllocator {
+
+    /**
+     * Next id that will be handed out.
+     */
+    private final AtomicInteger next;
+
+    /**
+     * Constructor for an allocator.
+     *
+     * @param first First id that will be handed out.
+     */
+    public IdAllocator(int first){
+        next = new AtomicInteger(first);
+    }
+
+    /**
+     * Method hands out one id.
+     *
+     * @return a new id
+     */
+    public int next(){
+        return next.getAndIncrement();
+    }
+
+    /**
+     * Method hands out a block of ids. Ids of the block that are not used are never handed out again.
+     *
+     * @param count Number of ids in the block.
+     * @return the first id of the block, the block ends at the returned id plus count minus one.
+     * @throws IllegalArgumentException if count is less than one.
+     */
+    public int lease(int count){
+        if(count < 1){
+            throw new IllegalArgumentException("A lease needs at least one id");
+        }
+        return next.getAndAdd(count);
+    }
+
+    /**
+     * @return the id that will be handed out next, without handing it out.
+     */
+    public int peek(){
+        return next.get();
+    }
+
+    /**
+     * Method makes sure an id that is already used, for example by a part loaded from disk, is never handed out.
+     *
+     * @param usedId Id that is already used.
+     */
+    public void advancePast(int usedId){
+        int current = next.get();
+        while(current <= usedId && !next.compareAndSet(current, usedId + 1)){
+            current = next.get();
+        }
+    }
+}
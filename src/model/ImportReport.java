@@ -0,0 +1,113 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ImportReport class that describes the result of a bulk import: how many rows were read and imported, how fast, and which rows were
+ * rejected and why. Only the first rejected rows are kept with their message, every rejected row is counted.
+ *
+ * @author José L Dávila Montalvo
+ */
+public class ImportReport {
+
+    /**
+     * Most rejected rows that are kept with their message.
+     */
+    public static final int MAX_ERRORS_KEPT = 1000;
+
+    /**
+     * Private properties of the report.
+     */
+    private long rowsRead;
+    private long partsImported;
+    private long productsImported;
+    private long rowsRejected;
+    private long elapsedNanos;
+    private final List<String> errors = new ArrayList<>();
+
+    /**
+     * Method records a rejected row.
+     *
+     * @param lineNumber Line of the file, starting at 1.
+     * @param message Reason the row was rejected.
+     */
+    void reject(long lineNumber, String message){
+        rowsRejected++;
+        if(errors.size() < MAX_ERRORS_KEPT){
+            errors.add("Line " + lineNumber + ": " + message);
+        }
+    }
+
+    void addRowsRead(long rows){
+        rowsRead += rows;
+    }
+
+    void addPartsImported(long parts){
+        partsImported += parts;
+    }
+
+    void addProductsImported(long products){
+        productsImported += products;
+    }
+
+    void setElapsedNanos(long elapsedNanos){
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return the number of data rows read from the file.
+     */
+    public long getRowsRead(){
+        return rowsRead;
+    }
+
+    /**
+     * @return the number of parts added to the Inventory.
+     */
+    public long getPartsImported(){
+        return partsImported;
+    }
+
+    /**
+     * @return the number of products added to the Inventory.
+     */
+    public long getProductsImported(){
+        return productsImported;
+    }
+
+    /**
+     * @return the number of rows that were rejected.
+     */
+    public long getRowsRejected(){
+        return rowsRejected;
+    }
+
+    /**
+     * @return the first rejected rows with the reason they were rejected.
+     */
+    public List<String> getErrors(){
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * @return the time the import took, in milliseconds.
+     */
+    public long getElapsedMillis(){
+        return elapsedNanos / 1_000_000;
+    }
+
+    /**
+     * @return the number of rows read per second.
+     */
+    public long getRowsPerSecond(){
+        return elapsedNanos == 0 ? 0 : rowsRead * 1_000_000_000L / elapsedNanos;
+    }
+
+    @Override
+    public String toString(){
+        return "Read " + rowsRead + " rows in " + getElapsedMillis() + " ms (" + getRowsPerSecond() + " rows/s), imported "
+                + partsImported + " parts and " + productsImported + " products, rejected " + rowsRejected + " rows";
+    }
+}
@@ -8,38 +8,42 @@ package model;
  */
 public class InHouse extends Part{
 
-    /**
-     * Private property of an Inhouse Part object.
-     */
-    private int machineId;
-
     /**
      *Constructor for Inhouse Part objects. Inherits attributes from Part parent class and adds machine ID attribute.
      *
      *@param id         Id number of the Inhouse part object.
      *@param name       Name of the Inhouse part object.
-     *@param price      Price of the Inhouse part object.
+     *@param price      Price of the Inhouse part object in cents.
      *@param stock      Quantity of the Inhouse part object in inventory.
      *@param min        Minimum quantity of the Inhouse part object in inventory.
      *@param max        Maximum quantity of the Inhouse part object in inventory.
      *@param machineId  Id of the machine that created the part.
      */
-    public InHouse(int id, String name, double price, int stock, int min, int max, int machineId) {
-        super(id, name, price, stock, min, max);
-        this.machineId = machineId;
+    public InHouse(int id, String name, long price, int stock, int min, int max, int machineId) {
+        super(id, new Values(name, price, stock, min, max, machineId, null));
+    }
+
+    private InHouse(int id, Values values) {
+        super(id, values);
+    }
+
+    @Override
+    InHouse copy(Values values) {
+        return new InHouse(getId(), values);
     }
 
     /**
      * @param machineId The machineId to set.
      */
-    public void setMachineId(int machineId) {
-        this.machineId = machineId;
+    void setMachineId(int machineId) {
+        Values v = values();
+        set(new Values(v.name, v.price, v.stock, v.min, v.max, machineId, null));
     }
 
     /**
      * @return the machineId
      */
     public int getMachineId(){
-        return machineId;
+        return values().machineId;
     }
 }
@@ -0,0 +1,285 @@
+package model;
+
+import javafx.collections.ObservableList;
+
+/**
+ * InputValidator class that checks the fields of a part or product entered as text, with the same rules everywhere: the part and
+ * product screens, the CSV import and the HTTP API.
+ * <p>
+ * Every field is read once, character by character, without regular expressions, and the numbers found are kept in the validator so
+ * they do not have to be parsed again to create the part or product. A field that is not valid gives the message shown to the user
+ * instead of an exception, so a bad row of a large import costs no more than a good one. Leading and trailing spaces are ignored.
+ * </p>
+ * <p>
+ * A validator keeps the values of the last fields it checked, so it can be reused for any number of rows but must only be used by
+ * one thread at a time.
+ * </p>
+ *
+ * @author José L Dávila Montalvo
+ */
+public final class InputValidator {
+
+    /**
+     * Messages for the fields that are not valid.
+     */
+    public static final String PART_NAME = "Please enter a part name in the Name field";
+    public static final String PRODUCT_NAME = "Please enter a product name in the Name field";
+    public static final String PRICE = "Please enter a number in the Price/Cost field";
+    public static final String STOCK = "Please enter a number in the Inv field";
+    public static final String MIN = "Please enter a number in the Min field";
+    public static final String MAX = "Please enter a number in the Max field";
+    public static final String MIN_ABOVE_MAX = "Min cannot be greater than max";
+    public static final String STOCK_OUTSIDE = "Inventory number entered is outside the min/max range";
+    public static final String MACHINE_ID = "Please enter a number in the Machine ID field";
+    public static final String COMPANY_NAME = "Please enter a name in the Company Name field";
+
+    /**
+     * Values of the last fields that were checked.
+     */
+    private String name;
+    private long price;
+    private int stock;
+    private int min;
+    private int max;
+    private int machineId;
+    private String companyName;
+
+    /**
+     * Method checks the name, price, stock, min and max fields of a part.
+     *
+     * @param name Name field.
+     * @param price Price/Cost field, with at most two decimals kept.
+     * @param stock Inv field.
+     * @param min Min field.
+     * @param max Max field.
+     * @return null if every field is valid, otherwise the message for the first field that is not.
+     */
+    public String checkPart(CharSequence name, CharSequence price, CharSequence stock, CharSequence min, CharSequence max){
+        return check(PART_NAME, name, price, stock, min, max);
+    }
+
+    /**
+     * Method checks the name, price, stock, min and max fields of a product.
+     *
+     * @param name Name field.
+     * @param price Price/Cost field, with at most two decimals kept.
+     * @param stock Inv field.
+     * @param min Min field.
+     * @param max Max field.
+     * @return null if every field is valid, otherwise the message for the first field that is not.
+     */
+    public String checkProduct(CharSequence name, CharSequence price, CharSequence stock, CharSequence min, CharSequence max){
+        return check(PRODUCT_NAME, name, price, stock, min, max);
+    }
+
+    /**
+     * @param machineId Machine ID field of an inhouse part.
+     * @return null if the field is valid, otherwise its message.
+     */
+    public String checkMachineId(CharSequence machineId){
+        this.machineId = parseInt(machineId);
+        return this.machineId < 0 ? MACHINE_ID : null;
+    }
+
+    /**
+     * @param companyName Company Name field of an outsourced part.
+     * @return null if the field is valid, otherwise its message.
+     */
+    public String checkCompanyName(CharSequence companyName){
+        this.companyName = text(companyName);
+        return this.companyName == null ? COMPANY_NAME : null;
+    }
+
+    /**
+     * Method turns a message of a check method into an exception, for callers that report input errors by catching them.
+     *
+     * @param message Result of a check method.
+     * @throws IllegalArgumentException with the message if it is not null.
+     */
+    public static void require(String message){
+        if(message != null){
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * @param id Id of the new part.
+     * @return an inhouse part with the checked fields.
+     */
+    public InHouse newInHouse(int id){
+        return new InHouse(id, name, price, stock, min, max, machineId);
+    }
+
+    /**
+     * @param id Id of the new part.
+     * @return an outsourced part with the checked fields.
+     */
+    public OutSourced newOutSourced(int id){
+        return new OutSourced(id, name, price, stock, min, max, companyName);
+    }
+
+    /**
+     * @param id Id of the new product.
+     * @param associatedParts Parts associated with the product.
+     * @return a product with the checked fields.
+     */
+    public Product newProduct(int id, ObservableList<Part> associatedParts){
+        return new Product(id, name, price, stock, min, max, associatedParts);
+    }
+
+    /**
+     * @return the name without leading and trailing spaces
+     */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * @return the price in cents
+     */
+    public long getPrice(){
+        return price;
+    }
+
+    /**
+     * @return the stock
+     */
+    public int getStock(){
+        return stock;
+    }
+
+    /**
+     * @return the min
+     */
+    public int getMin(){
+        return min;
+    }
+
+    /**
+     * @return the max
+     */
+    public int getMax(){
+        return max;
+    }
+
+    /**
+     * @return the machineId
+     */
+    public int getMachineId(){
+        return machineId;
+    }
+
+    /**
+     * @return the companyName without leading and trailing spaces
+     */
+    public String getCompanyName(){
+        return companyName;
+    }
+
+    /**
+     * Method checks the shared fields in the order the screens show their messages.
+     */
+    private String check(String nameMessage, CharSequence name, CharSequence price, CharSequence stock, CharSequence min,
+                         CharSequence max){
+        this.name = text(name);
+        if(this.name == null){
+            return nameMessage;
+        }
+        this.price = parsePrice(price);
+        if(this.price < 0){
+            return PRICE;
+        }
+        this.max = parseInt(max);
+        if(this.max < 0){
+            return MAX;
+        }
+        this.min = parseInt(min);
+        if(this.min < 0){
+            return MIN;
+        }
+        if(this.min > this.max){
+            return MIN_ABOVE_MAX;
+        }
+        this.stock = parseInt(stock);
+        if(this.stock < 0){
+            return STOCK;
+        }
+        if(this.stock > this.max || this.stock < this.min){
+            return STOCK_OUTSIDE;
+        }
+        return null;
+    }
+
+    /**
+     * @param field Text field, may be null.
+     * @return the text without leading and trailing spaces, or null if nothing is left.
+     */
+    private static String text(CharSequence field){
+        if(field == null){
+            return null;
+        }
+        String text = field.toString().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    /**
+     * @param field Price field made of digits and at most one decimal point, may be null.
+     * @return the price in cents, or -1 if the field is not a price.
+     */
+    private static long parsePrice(CharSequence field){
+        if(field == null){
+            return -1;
+        }
+        int start = start(field);
+        int end = end(field, start);
+        if(start == end || (field.charAt(start) != '.' && !isDigit(field.charAt(start)))){
+            return -1;
+        }
+        long cents = Money.tryParse(field, start, end);
+        return cents == Money.INVALID ? -1 : cents;
+    }
+
+    /**
+     * @param field Field made of digits only, may be null.
+     * @return the number, or -1 if the field is not a number or is too large for an int.
+     */
+    private static int parseInt(CharSequence field){
+        if(field == null){
+            return -1;
+        }
+        int start = start(field);
+        int end = end(field, start);
+        if(start == end){
+            return -1;
+        }
+        int value = 0;
+        for(int i = start; i < end; i++){
+            char c = field.charAt(i);
+            if(!isDigit(c) || value > (Integer.MAX_VALUE - (c - '0')) / 10){
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int start(CharSequence field){
+        int start = 0;
+        while(start < field.length() && field.charAt(start) <= ' '){
+            start++;
+        }
+        return start;
+    }
+
+    private static int end(CharSequence field, int start){
+        int end = field.length();
+        while(end > start && field.charAt(end - 1) <= ' '){
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isDigit(char c){
+        return c >= '0' && c <= '9';
+    }
+}
@@ -3,7 +3,24 @@ package model;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
-import java.util.Locale;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 
 /**
@@ -19,6 +36,18 @@ import java.util.Locale;
  * Updating objects in a list.
  * Deleting objects in a list.
  *</p>
+ * <p>
+ * Parts and products are kept in concurrent maps by id, so any thread can add, update, delete and look them up. Lookups by id take
+ * no lock. Every change locks only the part or product it changes, through a lock kept for each id, so changes to different objects
+ * run at the same time. The snapshot method waits for the changes in progress and holds back new ones, for readers
+ * that need everything at one point in time.
+ * </p>
+ * <p>
+ * The allParts and allProducts lists shown by the tableviews follow the maps. After a change, the list is brought up to date by a
+ * task that runs on the change executor, which the program sets to the JavaFX application thread. A task copies the latest state of
+ * the objects that changed, so the lists end up matching the maps whatever order the tasks run in. Until a change executor is set,
+ * for example when the program runs as a server without screens, the lists stay empty and changes do not touch them.
+ * </p>
  *
  * @author José L Dávila Montalvo
  */
@@ -27,83 +56,427 @@ public class Inventory {
     /**
      * Private attributes for the Inventory class
      *
-     * Lists contain all the parts or all the products created in the program.
+     * Lists contain all the parts or all the products created in the program. They are only changed while holding the lock of the
+     * Inventory class.
+     */
+    private static BatchList<Part> allParts = new BatchList<>();
+    private static BatchList<Product> allProducts = new BatchList<>();
+
+    /**
+     * Indexes that map an id number to the position of the part or product in its list.
+     */
+    private static Map<Integer, Integer> partPositions = new HashMap<>();
+    private static Map<Integer, Integer> productPositions = new HashMap<>();
+
+    /**
+     * Every part and product by id. These maps are the inventory, the lists above only show it.
+     */
+    private static final Map<Integer, Part> partsById = new ConcurrentHashMap<>();
+    private static final Map<Integer, Product> productsById = new ConcurrentHashMap<>();
+
+    /**
+     * Name indexes used to search parts and products by partial or complete name.
      */
-    private static ObservableList<Part> allParts = FXCollections.observableArrayList();
-    private static ObservableList<Product> allProducts = FXCollections.observableArrayList();
+    private static NameIndex partNames = new NameIndex();
+    private static NameIndex productNames = new NameIndex();
 
     /**
-     * @return allParts list.
+     * Index of the products that use each part.
+     */
+    private static final WhereUsedIndex whereUsed = new WhereUsedIndex();
+
+    /**
+     * Material cost of each product, kept until the price of one of its parts changes.
+     */
+    private static final CostRollup costs = new CostRollup(whereUsed);
+
+    /**
+     * Number of units of each product that can be built from the stock of its parts.
+     */
+    private static final BuildableQuantities buildable = new BuildableQuantities();
+
+    /**
+     * Optional columns that hold the fields of every part, null until useColumnarStorage is called.
+     */
+    private static volatile PartColumns partColumns;
+
+    /**
+     * Optional store file that keeps a record of every part for the paged parts table, null until usePartStore is called.
+     */
+    private static volatile MappedPartStore partStore;
+
+    /**
+     * Objects that are told about every change made to the inventory.
+     */
+    private static List<InventoryListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Allocators that hand out the id numbers of new parts and products.
+     */
+    private static final IdAllocator partIds = new IdAllocator(1);
+    private static final IdAllocator productIds = new IdAllocator(1);
+
+    /**
+     * Locks for changes. Every change holds the shared side of the snapshot lock and the lock of the id of the object it changes,
+     * snapshot holds the exclusive side. A lock is made the first time its id is changed and kept, since ids are not handed out twice.
+     */
+    private static final Map<Integer, Object> partLocks = new ConcurrentHashMap<>();
+    private static final Map<Integer, Object> productLocks = new ConcurrentHashMap<>();
+    private static final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+
+    /**
+     * Executor that runs the tasks that bring the lists up to date, null while no screen shows the lists, and the ids waiting for
+     * the current batch of each thread.
+     */
+    private static volatile Executor changeExecutor;
+    private static final ThreadLocal<Batch> batches = new ThreadLocal<>();
+
+    /**
+     * @return allParts list, which is only kept once a change executor is set.
      */
     public static ObservableList<Part> getAllParts() {
         return allParts;
     }
 
     /**
-     * @return allProducts list.
+     * @return allProducts list, which is only kept once a change executor is set.
      */
     public static ObservableList<Product> getAllProducts() {
         return allProducts;
     }
 
+    /**
+     * Method sets where the allParts and allProducts lists are brought up to date after a change, and fills the lists with every part
+     * and product in id order. The program uses the JavaFX application thread once it is running. Until then the lists are not kept,
+     * so changes made without screens do not wait for the lock of the lists.
+     *
+     * @param executor Executor that runs the list updates, in the order they are given.
+     */
+    public static void setChangeExecutor(Executor executor){
+        if(executor == null){
+            throw new NullPointerException("Executor cannot be null");
+        }
+        changeExecutor = executor;
+
+        // changes made before the executor was set are in the maps read after it
+        publish(new TreeSet<>(partsById.keySet()), new TreeSet<>(productsById.keySet()));
+    }
+
+    /**
+     * Method registers an object that is told about every part and product that is added, updated or deleted.
+     * Listeners are called on the thread that made the change, while the changed object is locked.
+     *
+     * @param listener Listener to add.
+     */
+    public static void addListener(InventoryListener listener){
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener Listener to remove.
+     */
+    public static void removeListener(InventoryListener listener){
+        listeners.remove(listener);
+    }
+
+    /**
+     * Method runs a reader while no change is being made to the inventory, so everything it reads belongs to one point in time.
+     * Changes started by other threads wait until the reader is done.
+     *
+     * @param reader Code that reads the inventory.
+     * @param <T> type of the result.
+     * @return the result of the reader.
+     */
+    public static <T> T snapshot(Supplier<T> reader){
+        snapshotLock.writeLock().lock();
+        try{
+            return reader.get();
+        }finally{
+            snapshotLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return every part, in no particular order. Used with snapshot for a consistent copy.
+     */
+    static Collection<Part> partValues(){
+        return partsById.values();
+    }
+
+    /**
+     * @return every product, in no particular order. Used with snapshot for a consistent copy.
+     */
+    static Collection<Product> productValues(){
+        return productsById.values();
+    }
+
+    /**
+     * Method moves the fields of every part, and of every part added later, into columns, with the numbers in primitive arrays.
+     * Parts keep working the same way, but scans such as getTotalPartValue run as passes over arrays.
+     */
+    public static void useColumnarStorage(){
+        snapshot(() -> {
+            if(partColumns == null){
+                PartColumns columns = new PartColumns(partsById.size());
+                for(Part part: partsById.values()){
+                    columns.attach(part);
+                }
+                partColumns = columns;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Method opens a store file that keeps a copy of every part, brings it up to date with the parts of the inventory and keeps it
+     * up to date with every change made after that. Screens can then page through the parts without walking the part objects, which
+     * the inventory still keeps. Nothing is opened if a store is already in use.
+     *
+     * @param file Store file, created if it does not exist.
+     * @return the store in use.
+     * @throws IOException if the file cannot be opened or written.
+     */
+    public static MappedPartStore usePartStore(Path file) throws IOException {
+        MappedPartStore store = partStore;
+        if(store != null){
+            return store;
+        }
+        MappedPartStore opened = MappedPartStore.open(file);
+        try{
+            return snapshot(() -> {
+                if(partStore != null){
+                    return partStore;
+                }
+                try{
+                    opened.load(partsById.values());
+                }catch (IOException e){
+                    throw new UncheckedIOException(e);
+                }
+                addListener(opened);
+                partStore = opened;
+                return opened;
+            });
+        }catch (UncheckedIOException e){
+            throw e.getCause();
+        }finally{
+            // the file is closed again if another thread opened a store first or the parts could not be loaded
+            if(partStore != opened){
+                opened.close();
+            }
+        }
+    }
+
+    /**
+     * @return the store that keeps a record of every part, or null if usePartStore was not called.
+     */
+    public static MappedPartStore getPartStore(){
+        return partStore;
+    }
+
+    /**
+     * Method adds up price times stock for every part.
+     *
+     * @return the total value of all the parts in inventory in cents.
+     * @throws ArithmeticException if the total does not fit in a long.
+     */
+    public static long getTotalPartValue(){
+        PartColumns columns = partColumns;
+        if(columns != null){
+            return columns.totalValue();
+        }
+        long total = 0;
+        for(Part part: partsById.values()){
+            total = Money.add(total, Money.times(part.getPriceCents(), part.getStock()));
+        }
+        return total;
+    }
+
+    /**
+     * Method counts the parts whose stock is below their minimum.
+     *
+     * @return the number of parts with low stock.
+     */
+    public static int getLowStockPartCount(){
+        PartColumns columns = partColumns;
+        if(columns != null){
+            return columns.lowStockCount();
+        }
+        int count = 0;
+        for(Part part: partsById.values()){
+            if(part.getStock() < part.getMin()){
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Method automatically generates an id number for the part.
+     * Every call hands out a new id, ids are never reused and no lock is taken.
      *
      * @return the part id
      */
     public static int incrementPartId(){
-        int id;
-
-        if(allParts.size() >= 1){
-            int number = allParts.size() - 1;
-            Part lastPart = allParts.get(number);
-            int lastPartId = lastPart.getId();
-            id = lastPartId + 1;
-        }else{
-            id = 1;
-        }
-        return id;
+        return partIds.next();
     }
 
     /**
      * Method automatically generates an id number for the product.
+     * Every call hands out a new id, ids are never reused and no lock is taken.
      *
      * @return the product id
      */
     public static int incrementProdId(){
-        int id;
+        return productIds.next();
+    }
 
-        if(allProducts.size() >= 1){
-            int number = allProducts.size() - 1;
-            Product lastProd = allProducts.get(number);
-            int lastProdId = lastProd.getId();
-            id = lastProdId + 1;
-        }else{
-            id = 1;
-        }
-        return id;
+    /**
+     * @return the allocator of part ids, used by bulk writers to lease blocks of ids and by the InventoryLog to save the next id.
+     */
+    public static IdAllocator getPartIds(){
+        return partIds;
+    }
+
+    /**
+     * @return the allocator of product ids, used by bulk writers to lease blocks of ids and by the InventoryLog to save the next id.
+     */
+    public static IdAllocator getProductIds(){
+        return productIds;
     }
 
     /**
-     * Method adds a part to the allParts list.
+     * Method adds a part to the allParts list. A part with the id of a part already in the inventory replaces it, unless a product
+     * uses that part: the product holds the part object, so it would keep the replaced one.
      *
      * @param part  Part object to be added
+     * @throws IllegalStateException if the part replaces a part associated with a product, with the message shown to the user.
      */
     public static void addPart(Part part){
-        allParts.add(part);
+        int id = part.getId();
+        boolean stockChanged;
+        snapshotLock.readLock().lock();
+        try{
+            synchronized(partLock(id)){
+                Part previous = partsById.get(id);
+                if(previous != null){
+                    int products = whereUsed.productsUsing(id).size();
+                    if(products > 0){
+                        throw new IllegalStateException("Part " + id + " is associated with " + products
+                                + (products == 1 ? " product" : " products") + " and cannot be replaced");
+                    }
+                }
+                partsById.put(id, part);
+                int previousStock = previous == null ? 0 : previous.getStock();
+                stockChanged = previous != null && previousStock != part.getStock();
+                PartColumns columns = partColumns;
+                if(previous != null){
+                    partNames.update(id, part.getName());
+                    costs.partPriceChanged(id);
+                    if(columns != null){
+                        columns.detach(previous);
+                    }
+                }else{
+                    partNames.add(id, part.getName());
+                }
+                if(columns != null){
+                    columns.attach(part);
+                }
+                partIds.advancePast(id);
+                stockMoved(StockMovement.Type.ADJUSTMENT, true, id, (long) part.getStock() - previousStock);
+                for(InventoryListener listener: listeners){
+                    listener.partAdded(part);
+                }
+            }
+        }finally{
+            snapshotLock.readLock().unlock();
+        }
+        partChanged(id);
+        if(stockChanged){
+            partStockChanged(id);
+        }
     }
 
     /**
      * Method adds a product to the allProducts list.
      *
      * @param product  Product object to be added
+     * @throws IllegalArgumentException if an associated part is not in the inventory.
      */
     public static void addProduct(Product product){
-        allProducts.add(product);
+        int id = product.getId();
+        snapshotLock.readLock().lock();
+        try{
+            synchronized(productLock(id)){
+                linkParts(id, product.getAssociatedParts());
+                Product previous = productsById.put(id, product);
+                if(previous != null){
+                    productNames.update(id, product.getName());
+                }else{
+                    productNames.add(id, product.getName());
+                }
+                costs.productChanged(id);
+                buildable.update(product);
+                productIds.advancePast(id);
+                stockMoved(StockMovement.Type.ADJUSTMENT, false, id, (long) product.getStock() - (previous == null ? 0 : previous.getStock()));
+                for(InventoryListener listener: listeners){
+                    listener.productAdded(product);
+                }
+            }
+        }finally{
+            snapshotLock.readLock().unlock();
+        }
+        productChanged(id);
     }
 
     /**
-     *Method looks for a part in the allParts list by id number.
+     * Method applies a group of changes as one batch. Any number of parts and products can be added, updated or deleted inside the
+     * batch through the methods of this class, and the allParts and allProducts lists each fire a single change event when the batch
+     * ends, so a bound tableview refreshes once whether one part or ten thousand parts changed.
+     * Batches can be nested. Listeners added with addListener are still told about every change. Other threads can change the
+     * inventory while a batch runs.
+     *
+     * @param changes Changes to apply, made by calling the add, update and delete methods of this class.
+     */
+    public static void batchUpdate(Runnable changes){
+        Batch batch = batches.get();
+        if(batch != null){
+            changes.run();
+            return;
+        }
+        batch = new Batch();
+        batches.set(batch);
+        try{
+            changes.run();
+        }finally{
+            batches.remove();
+            publish(batch.partIds, batch.productIds);
+        }
+    }
+
+    /**
+     * Method returns the position of a part in the allParts list using the id index.
+     *
+     * @param part Part object being searched for.
+     * @return the list index of the part or -1 if the part is not in the list.
+     */
+    public static synchronized int getPartIndex(Part part){
+        Integer position = partPositions.get(part.getId());
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * Method returns the position of a product in the allProducts list using the id index.
+     *
+     * @param product Product object being searched for.
+     * @return the list index of the product or -1 if the product is not in the list.
+     */
+    public static synchronized int getProductIndex(Product product){
+        Integer position = productPositions.get(product.getId());
+        return position == null ? -1 : position;
+    }
+
+    /**
+     *Method looks for a part by id number. No lock is taken.
      *
      * @param partId Id of the part being searched for.
      * @return thisPart if thisPart.getId() matches partId or null if no part is found
@@ -111,36 +484,29 @@ public class Inventory {
      * @throws NullPointerException when null is returned.
      */
     public static Part lookupPart(int partId) throws NumberFormatException, NullPointerException{
-        ObservableList<Part> tempParts = Inventory.getAllParts();
-        for(int i = 0; i < tempParts.size(); i++){
-            Part thisPart = tempParts.get(i);
-            if(thisPart.getId() == partId){
-                return thisPart;
-            }
-        }
-        return null;
+        return partsById.get(partId);
     }
 
     /**
-     * Method returns a list of parts that match the string entered.
+     * Method returns a list of parts that match the string entered, in id order. Only the parts found by the name index are visited.
      *
      * @param partName Partial or complete name of the part being searched for.
      * @return returnList Observablelist of parts that match the string entered.
      */
     public static ObservableList<Part> lookupPart(String partName){
 
-        ObservableList<Part> tempAllParts = Inventory.getAllParts();
         ObservableList<Part> returnList = FXCollections.observableArrayList();
-        for(Part thisPart: tempAllParts){
-            if(thisPart.getName().toLowerCase(Locale.ROOT).contains(partName)){
-                returnList.add(thisPart);
+        for(int id: sortedIds(partNames.search(partName))){
+            Part part = partsById.get(id);
+            if(part != null){
+                returnList.add(part);
             }
         }
-        return FXCollections.observableArrayList(returnList);
+        return returnList;
     }
 
     /**
-     *Method looks for a product in the allProducts list by id number.
+     *Method looks for a product by id number. No lock is taken.
      *
      * @param productId Id of the product being searched for.
      * @return thisProduct if thisProduct.getId() matches productId or null if no part is found.
@@ -148,142 +514,796 @@ public class Inventory {
      * @throws NullPointerException when null is returned.
      */
     public static Product lookupProduct(int productId) throws NumberFormatException, NullPointerException{
-        ObservableList<Product> tempProduct = Inventory.getAllProducts();
-        for(int i = 0; i < tempProduct.size(); i++){
-            Product thisProduct = tempProduct.get(i);
-            if(thisProduct.getId() == productId){
-                return thisProduct;
-            }
-        }
-        return null;
+        return productsById.get(productId);
     }
 
     /**
-     * Method returns a list of parts that match the string entered.
+     * Method returns a list of products that match the string entered, in id order. Only the products found by the name index are visited.
      *
      * @param productName Partial or complete name of the product being searched for.
      * @return returnList Observablelist of products that match the string entered.
      */
     public static ObservableList<Product> lookupProduct(String productName){
 
-        ObservableList<Product> tempAllProducts = Inventory.getAllProducts();
         ObservableList<Product> returnList = FXCollections.observableArrayList();
-        for(Product thisProduct: tempAllProducts){
-            if(thisProduct.getName().toLowerCase(Locale.ROOT).contains(productName)){
-                returnList.add(thisProduct);
+        for(int id: sortedIds(productNames.search(productName))){
+            Product product = productsById.get(id);
+            if(product != null){
+                returnList.add(product);
+            }
+        }
+        return returnList;
+    }
+
+    /**
+     * Method returns the ids of every part that matches the text entered, either by id number or by partial or complete name.
+     * The search is resolved once so a table filter only has to check if a part id is in the returned set.
+     *
+     * @param text Id number or partial name entered in a searchfield.
+     * @return a new set with the ids of the matching parts.
+     */
+    public static Set<Integer> matchPartIds(String text){
+        Set<Integer> matches = partNames.search(text);
+        int id = parseId(text);
+        if(id >= 0 && partsById.containsKey(id)){
+            matches.add(id);
+        }
+        return matches;
+    }
+
+    /**
+     * Method returns the ids of every product that matches the text entered, either by id number or by partial or complete name.
+     * The search is resolved once so a table filter only has to check if a product id is in the returned set.
+     *
+     * @param text Id number or partial name entered in a searchfield.
+     * @return a new set with the ids of the matching products.
+     */
+    public static Set<Integer> matchProductIds(String text){
+        Set<Integer> matches = productNames.search(text);
+        int id = parseId(text);
+        if(id >= 0 && productsById.containsKey(id)){
+            matches.add(id);
+        }
+        return matches;
+    }
+
+    /**
+     * Method returns the ids of the products that have a part in their associated parts, without walking the products.
+     *
+     * @param partId Id of the part.
+     * @return a read only set of product ids, empty if no product uses the part.
+     */
+    public static Set<Integer> whereUsed(int partId){
+        return whereUsed.productsUsing(partId);
+    }
+
+    /**
+     * @param partId Id of the part.
+     * @return true if at least one product has the part in its associated parts.
+     */
+    public static boolean isPartUsed(int partId){
+        return whereUsed.isUsed(partId);
+    }
+
+    /**
+     * Method returns the material cost of a product, the sum of the prices of its associated parts. The cost of a product in the
+     * inventory is remembered until the price of one of its parts changes.
+     *
+     * @param product Product object.
+     * @return the material cost of the product in cents.
+     */
+    public static long getMaterialCost(Product product){
+        if(productsById.get(product.getId()) != product){
+            return CostRollup.sum(product);
+        }
+        return costs.materialCost(product);
+    }
+
+    /**
+     * Method returns how many units of a product can be built from the current stock of its associated parts, without computing it.
+     *
+     * @param product Product in the inventory.
+     * @return the buildable quantity, 0 if the product is not in the inventory.
+     */
+    public static int getBuildableQuantity(Product product){
+        return buildable.get(product.getId());
+    }
+
+    /**
+     * Method reads an id number from the text entered without throwing an exception when the text is not a number.
+     *
+     * @param text Text entered in a searchfield.
+     * @return the id number or -1 if the text is not a valid id.
+     */
+    private static int parseId(String text){
+        if(text == null || text.isEmpty() || text.length() > 9){
+            return -1;
+        }
+        int id = 0;
+        for(int i = 0; i < text.length(); i++){
+            char c = text.charAt(i);
+            if(c < '0' || c > '9'){
+                return -1;
             }
+            id = id * 10 + (c - '0');
         }
-        return FXCollections.observableArrayList(returnList);
+        return id;
+    }
+
+    /**
+     * @param ids Ids returned by a name index.
+     * @return the ids in increasing order.
+     */
+    private static int[] sortedIds(Set<Integer> ids){
+        int[] sorted = new int[ids.size()];
+        int count = 0;
+        for(Integer id: ids){
+            sorted[count++] = id;
+        }
+        Arrays.sort(sorted);
+        return sorted;
     }
 
     /**
      *Method updates an existing inhouse part and may replace data.
      *
-     * @param index List index of the part being updated.
+     * @param index List index of the part being updated. The part is found by its id.
      * @param selectedPart  Part object that will be updated.
      * @param name  Name for the part.
-     * @param price Price for the part.
+     * @param price Price for the part in cents.
      * @param stock Inventory number for the part.
      * @param min   Minimum amount of inventory for the part.
      * @param max   Maximum amount of inventory for the part.
      * @param machineId Id of the machine that created the part.
      */
-    public static void updateInhousePart(int index, Part selectedPart, String name, Double price, int stock, int min, int max, int machineId){
+    public static void updateInhousePart(int index, Part selectedPart, String name, long price, int stock, int min, int max, int machineId){
 
-        for(Part thisPart: allParts){
-            if(thisPart.getId() == selectedPart.getId()  ){
-                thisPart.setName(name);
-                thisPart.setPrice(price);
-                thisPart.setStock(stock);
-                thisPart.setMin(min);
-                thisPart.setMax(max);
-                ((InHouse) thisPart).setMachineId(machineId);
+        int id = selectedPart.getId();
+        boolean stockChanged;
+        snapshotLock.readLock().lock();
+        try{
+            synchronized(partLock(id)){
+                Part thisPart = partsById.get(id);
+                if(thisPart == null){
+                    return;
+                }
+                partNames.update(id, name);
+                boolean priceChanged = thisPart.getPriceCents() != price;
+                int previousStock = thisPart.getStock();
+                stockChanged = previousStock != stock;
+                thisPart.set(new Part.Values(name, price, stock, min, max, machineId, null));
+                if(priceChanged){
+                    costs.partPriceChanged(id);
+                }
+                stockMoved(StockMovement.Type.ADJUSTMENT, true, id, (long) stock - previousStock);
+                for(InventoryListener listener: listeners){
+                    listener.partUpdated(thisPart);
+                }
             }
-            allParts.set(index, selectedPart);
+        }finally{
+            snapshotLock.readLock().unlock();
+        }
+        partChanged(id);
+        if(stockChanged){
+            partStockChanged(id);
         }
     }
 
     /**
      *Method updates an existing outsourced part and may replace data.
      *
-     * @param index List index of the part being updated.
+     * @param index List index of the part being updated. The part is found by its id.
      * @param selectedPart  Part object that will be updated.
      * @param name  Name for the part.
-     * @param price Price for the part.
+     * @param price Price for the part in cents.
      * @param stock Inventory number for the part.
      * @param min   Minimum amount of inventory for the part.
      * @param max   Maximum amount of inventory for the part.
      * @param companyName Name of the company where the part comes from.
      */
-    public static void updateOutsourcedPart(int index, Part selectedPart, String name, Double price, int stock, int min, int max, String companyName){
+    public static void updateOutsourcedPart(int index, Part selectedPart, String name, long price, int stock, int min, int max, String companyName){
 
-        for(Part thisPart: allParts){
-            if(thisPart.getId() == selectedPart.getId()  ){
-                thisPart.setName(name);
-                thisPart.setPrice(price);
-                thisPart.setStock(stock);
-                thisPart.setMin(min);
-                thisPart.setMax(max);
-                ((OutSourced) thisPart).setCompanyName(companyName);
+        int id = selectedPart.getId();
+        boolean stockChanged;
+        snapshotLock.readLock().lock();
+        try{
+            synchronized(partLock(id)){
+                Part thisPart = partsById.get(id);
+                if(thisPart == null){
+                    return;
+                }
+                partNames.update(id, name);
+                boolean priceChanged = thisPart.getPriceCents() != price;
+                int previousStock = thisPart.getStock();
+                stockChanged = previousStock != stock;
+                thisPart.set(new Part.Values(name, price, stock, min, max, 0, companyName));
+                if(priceChanged){
+                    costs.partPriceChanged(id);
+                }
+                stockMoved(StockMovement.Type.ADJUSTMENT, true, id, (long) stock - previousStock);
+                for(InventoryListener listener: listeners){
+                    listener.partUpdated(thisPart);
+                }
             }
-            allParts.set(index, selectedPart);
+        }finally{
+            snapshotLock.readLock().unlock();
+        }
+        partChanged(id);
+        if(stockChanged){
+            partStockChanged(id);
         }
     }
 
     /**
      *Method updates an existing product and may replace data.
      *
-     * @param index List index of the product being updated.
+     * @param index List index of the product being updated. The product is found by its id.
      * @param selectedProduct  Product object that will be updated.
      * @param name  Name for the product.
-     * @param price Price for the product.
+     * @param price Price for the product in cents.
      * @param stock Inventory number for the product.
      * @param min   Minimum amount of inventory for the product.
      * @param max   Maximum amount of inventory for the product.
      * @param associatedPart List of parts associated with the product.
+     * @throws IllegalArgumentException if an associated part is not in the inventory.
+     */
+    public static void updateProduct(int index, Product selectedProduct, String name, long price, int stock, int min, int max, ObservableList associatedPart){
+
+        int id = selectedProduct.getId();
+        snapshotLock.readLock().lock();
+        try{
+            synchronized(productLock(id)){
+                Product thisProduct = productsById.get(id);
+                if(thisProduct == null){
+                    return;
+                }
+                linkParts(id, associatedPart);
+                productNames.update(id, name);
+                int previousStock = thisProduct.getStock();
+                thisProduct.set(Product.Values.of(name, price, stock, min, max, associatedPart));
+                costs.productChanged(id);
+                buildable.update(thisProduct);
+                stockMoved(StockMovement.Type.ADJUSTMENT, false, id, (long) stock - previousStock);
+                for(InventoryListener listener: listeners){
+                    listener.productUpdated(thisProduct);
+                }
+            }
+        }finally{
+            snapshotLock.readLock().unlock();
+        }
+        productChanged(id);
+    }
+
+    /**
+     * Method adds to or removes from the stock of a part in one step, so stock counted by two scanners at the same time is not lost.
+     *
+     * @param partId Id of the part.
+     * @param change Number of units added, negative when units are taken.
+     * @return the part with its new stock, or null if no part has the id.
+     * @throws IllegalArgumentException if the new stock is outside the min/max range of the part.
      */
-    public static void updateProduct(int index, Product selectedProduct, String name, Double price, int stock, int min, int max, ObservableList associatedPart){
+    public static Part adjustPartStock(int partId, int change){
+        Part thisPart;
+        snapshotLock.readLock().lock();
+        try{
+            synchronized(partLock(partId)){
+                thisPart = partsById.get(partId);
+                if(thisPart == null){
+                    return null;
+                }
+                long stock = (long) thisPart.getStock() + change;
+                if(stock < thisPart.getMin() || stock > thisPart.getMax()){
+                    throw new IllegalArgumentException("Inventory number entered is outside the min/max range");
+                }
+                thisPart.setStock((int) stock);
+                stockMoved(change > 0 ? StockMovement.Type.RECEIPT : StockMovement.Type.CONSUMPTION, true, partId, change);
+                for(InventoryListener listener: listeners){
+                    listener.partUpdated(thisPart);
+                }
+            }
+        }finally{
+            snapshotLock.readLock().unlock();
+        }
+        partChanged(partId);
+        partStockChanged(partId);
+        return thisPart;
+    }
 
-        for(Product thisProduct: allProducts){
-            if(thisProduct.getId() == selectedProduct.getId()  ){
-                thisProduct.setName(name);
-                thisProduct.setPrice(price);
+    /**
+     * Method adds to or removes from the stock of a product in one step.
+     *
+     * @param productId Id of the product.
+     * @param change Number of units added, negative when units are taken.
+     * @return the product with its new stock, or null if no product has the id.
+     * @throws IllegalArgumentException if the new stock is outside the min/max range of the product.
+     */
+    public static Product adjustProductStock(int productId, int change){
+        Product thisProduct;
+        snapshotLock.readLock().lock();
+        try{
+            synchronized(productLock(productId)){
+                thisProduct = productsById.get(productId);
+                if(thisProduct == null){
+                    return null;
+                }
+                long stock = (long) thisProduct.getStock() + change;
+                if(stock < thisProduct.getMin() || stock > thisProduct.getMax()){
+                    throw new IllegalArgumentException("Inventory number entered is outside the min/max range");
+                }
+                thisProduct.setStock((int) stock);
+                stockMoved(change > 0 ? StockMovement.Type.RECEIPT : StockMovement.Type.CONSUMPTION, false, productId, change);
+                for(InventoryListener listener: listeners){
+                    listener.productUpdated(thisProduct);
+                }
+            }
+        }finally{
+            snapshotLock.readLock().unlock();
+        }
+        productChanged(productId);
+        return thisProduct;
+    }
+
+    /**
+     * Method sets the stock of a part to the stock kept by the StockLedger. No stock movement is made, the ledger already has the
+     * movements that explain the stock. The listeners are told the part was updated, so the saved inventory follows.
+     *
+     * @param partId Id of the part.
+     * @param stock Stock of the part in the ledger.
+     * @throws IllegalArgumentException if the stock is outside the min/max range of the part.
+     */
+    static void restorePartStock(int partId, int stock){
+        snapshotLock.readLock().lock();
+        try{
+            synchronized(partLock(partId)){
+                Part thisPart = partsById.get(partId);
+                if(thisPart == null){
+                    return;
+                }
+                if(stock < thisPart.getMin() || stock > thisPart.getMax()){
+                    throw new IllegalArgumentException("Inventory number entered is outside the min/max range");
+                }
+                thisPart.setStock(stock);
+                for(InventoryListener listener: listeners){
+                    listener.partUpdated(thisPart);
+                }
+            }
+        }finally{
+            snapshotLock.readLock().unlock();
+        }
+        partChanged(partId);
+        partStockChanged(partId);
+    }
+
+    /**
+     * Method sets the stock of a product to the stock kept by the StockLedger, without a stock movement.
+     *
+     * @param productId Id of the product.
+     * @param stock Stock of the product in the ledger.
+     * @throws IllegalArgumentException if the stock is outside the min/max range of the product.
+     */
+    static void restoreProductStock(int productId, int stock){
+        snapshotLock.readLock().lock();
+        try{
+            synchronized(productLock(productId)){
+                Product thisProduct = productsById.get(productId);
+                if(thisProduct == null){
+                    return;
+                }
+                if(stock < thisProduct.getMin() || stock > thisProduct.getMax()){
+                    throw new IllegalArgumentException("Inventory number entered is outside the min/max range");
+                }
                 thisProduct.setStock(stock);
-                thisProduct.setMin(min);
-                thisProduct.setMax(max);
-                thisProduct.setAssociatedParts(associatedPart);
+                for(InventoryListener listener: listeners){
+                    listener.productUpdated(thisProduct);
+                }
+            }
+        }finally{
+            snapshotLock.readLock().unlock();
+        }
+        productChanged(productId);
+    }
+
+    /**
+     * Method builds units of a product from its associated parts as one transaction: the stock of every part goes down by the units
+     * it takes and the stock of the product goes up, or nothing changes if any stock would leave its min/max range.
+     * <p>
+     * The product is locked first, then its parts in increasing id order. Every transaction takes its locks in that order and no other
+     * change holds a part while waiting for a product, so builds cannot deadlock. Builds of products that do not share parts run in
+     * parallel.
+     * </p>
+     *
+     * @param productId Id of the product.
+     * @param quantity Number of units built.
+     * @return the product with its new stock.
+     * @throws IllegalArgumentException if the product does not exist, a part was deleted, or a stock would leave its min/max range.
+     */
+    public static Product buildProduct(int productId, int quantity){
+        if(quantity < 1){
+            throw new IllegalArgumentException("Please build at least one unit");
+        }
+        Product thisProduct;
+        Map<Part, Integer> needed = new TreeMap<>((a, b) -> Integer.compare(a.getId(), b.getId()));
+        snapshotLock.readLock().lock();
+        try{
+            synchronized(productLock(productId)){
+                thisProduct = productsById.get(productId);
+                if(thisProduct == null){
+                    throw new IllegalArgumentException("Product " + productId + " does not exist");
+                }
+                for(Part part: thisProduct.getAssociatedParts()){
+                    needed.merge(part, 1, Integer::sum);
+                }
+                int[] partIds = needed.keySet().stream().mapToInt(Part::getId).toArray();
+                Product product = thisProduct;
+                lockParts(partIds, 0, () -> assemble(product, needed, quantity));
+            }
+        }finally{
+            snapshotLock.readLock().unlock();
+        }
+        for(Part part: needed.keySet()){
+            partChanged(part.getId());
+        }
+        productChanged(productId);
+        for(Part part: needed.keySet()){
+            partStockChanged(part.getId());
+        }
+        return thisProduct;
+    }
+
+    /**
+     * Method holds the locks of the parts from the given position on and then runs the change.
+     *
+     * @param partIds Ids of the parts in increasing order, without repeats.
+     * @param from First part not yet locked.
+     * @param change Change made while every part is locked.
+     */
+    private static void lockParts(int[] partIds, int from, Runnable change){
+        if(from == partIds.length){
+            change.run();
+            return;
+        }
+        synchronized(partLock(partIds[from])){
+            lockParts(partIds, from + 1, change);
+        }
+    }
+
+    /**
+     * Method records the associated parts of a product in the where used index while the parts are locked, after
+     * checking that every part is still in the inventory. deletePart checks the index while holding the lock of its part, so a part
+     * is never deleted while a product starts using it. Called while the product is locked, before the product is changed.
+     *
+     * @param productId Id of the product.
+     * @param parts Associated parts of the product.
+     * @throws IllegalArgumentException if a part is not in the inventory.
+     */
+    private static void linkParts(int productId, Collection<Part> parts){
+        int[] partIds = parts.stream().mapToInt(Part::getId).distinct().sorted().toArray();
+        lockParts(partIds, 0, () -> {
+            for(Part part: parts){
+                if(!partsById.containsKey(part.getId())){
+                    throw new IllegalArgumentException("Part " + part.getId() + " no longer exists");
+                }
+            }
+            whereUsed.set(productId, parts);
+        });
+    }
+
+    /**
+     * Method checks every stock taking part in a build and then changes them. Called while the product and its parts are locked.
+     *
+     * @param product Product being built.
+     * @param needed Units of each part taken by one unit of the product.
+     * @param quantity Number of units built.
+     */
+    private static void assemble(Product product, Map<Part, Integer> needed, int quantity){
+        for(Map.Entry<Part, Integer> entry: needed.entrySet()){
+            Part part = entry.getKey();
+            if(partsById.get(part.getId()) != part){
+                throw new IllegalArgumentException("Part " + part.getId() + " no longer exists");
+            }
+            if(quantity > BuildableQuantities.unitsFrom(part.getStock(), part.getMin(), entry.getValue())){
+                throw new IllegalArgumentException("Not enough stock of " + part.getName() + " to build " + quantity
+                        + (quantity == 1 ? " unit" : " units"));
+            }
+        }
+        long stock = (long) product.getStock() + quantity;
+        if(stock > product.getMax()){
+            throw new IllegalArgumentException("Inventory number entered is outside the min/max range");
+        }
+
+        for(Map.Entry<Part, Integer> entry: needed.entrySet()){
+            Part part = entry.getKey();
+            int used = entry.getValue() * quantity;
+            part.setStock(part.getStock() - used);
+            stockMoved(StockMovement.Type.CONSUMPTION, true, part.getId(), -used);
+            for(InventoryListener listener: listeners){
+                listener.partUpdated(part);
             }
-            allProducts.set(index, selectedProduct);
+        }
+        product.setStock((int) stock);
+        stockMoved(StockMovement.Type.RECEIPT, false, product.getId(), quantity);
+        for(InventoryListener listener: listeners){
+            listener.productUpdated(product);
         }
     }
 
     /**
-     *Method deletes a selected part object from the allParts list.
+     *Method deletes a selected part object from the allParts list. A part associated with a product is not deleted.
+     * The where used index is checked while the part is locked, and products only start using a part while holding its lock, so no
+     * product can start using the part between the check and the delete.
      *
      * @param selectedPart Part object to be deleted.
-     * @return allParts.remove(thisPart) If true, the part is deleted or false if it is not deleted.
+     * @return true if the part is deleted or false if it is not in the inventory.
+     * @throws IllegalStateException if the part is associated with a product, with the message shown to the user.
      */
     public static boolean deletePart(Part selectedPart){
-        for(Part thisPart: allParts){
-            if(thisPart.getId() == selectedPart.getId()){
-                return allParts.remove(thisPart);
+        int id = selectedPart.getId();
+        snapshotLock.readLock().lock();
+        try{
+            synchronized(partLock(id)){
+                Part deletedPart = partsById.get(id);
+                if(deletedPart == null){
+                    return false;
+                }
+                int products = whereUsed.productsUsing(id).size();
+                if(products > 0){
+                    throw new IllegalStateException("Part is associated with " + products + (products == 1 ? " product" : " products")
+                            + " and cannot be deleted");
+                }
+                partsById.remove(id);
+                partNames.remove(id);
+                PartColumns columns = partColumns;
+                if(columns != null){
+                    columns.detach(deletedPart);
+                }
+                stockMoved(StockMovement.Type.ADJUSTMENT, true, id, -(long) deletedPart.getStock());
+                for(InventoryListener listener: listeners){
+                    listener.partDeleted(deletedPart);
+                }
             }
+        }finally{
+            snapshotLock.readLock().unlock();
         }
-        return false;
+        partChanged(id);
+        return true;
     }
 
     /**
      *Method deletes a selected product object from the allProducts list.
      *
      * @param selectedProduct Product object to be deleted.
-     * @return allProducts.remove(thisProduct) If true, the product is deleted or false Product is not deleted.
+     * @return true if the product is deleted or false if the product is not deleted.
      */
     public static boolean deleteProduct(Product selectedProduct){
-        for(Product thisProduct: allProducts){
-            if(thisProduct.getId() == selectedProduct.getId()){
-                return allProducts.remove(thisProduct);
+        int id = selectedProduct.getId();
+        snapshotLock.readLock().lock();
+        try{
+            synchronized(productLock(id)){
+                Product deletedProduct = productsById.remove(id);
+                if(deletedProduct == null){
+                    return false;
+                }
+                productNames.remove(id);
+                whereUsed.remove(id);
+                costs.productChanged(id);
+                buildable.remove(id);
+                stockMoved(StockMovement.Type.ADJUSTMENT, false, id, -(long) deletedProduct.getStock());
+                for(InventoryListener listener: listeners){
+                    listener.productDeleted(deletedProduct);
+                }
+            }
+        }finally{
+            snapshotLock.readLock().unlock();
+        }
+        productChanged(id);
+        return true;
+    }
+
+    /**
+     * Method changes the associated parts of a product while the product is locked, then tells the listeners if the product is in
+     * the inventory. Used by the Product class when parts are added to or removed from an existing product.
+     *
+     * @param product Product object that changes.
+     * @param added Part added by the change, or null if the change removes a part.
+     * @param change Change made to the associated parts.
+     * @return the result of the change.
+     * @throws IllegalArgumentException if the added part is not in the inventory.
+     */
+    static boolean changeAssociatedParts(Product product, Part added, Supplier<Boolean> change){
+        int id = product.getId();
+        boolean changed;
+        boolean stored;
+        snapshotLock.readLock().lock();
+        try{
+            synchronized(productLock(id)){
+                stored = productsById.get(id) == product;
+                if(stored && added != null){
+                    List<Part> parts = new ArrayList<>(product.getAssociatedParts());
+                    parts.add(added);
+                    linkParts(id, parts);
+                }
+                changed = change.get();
+                if(stored){
+                    whereUsed.set(id, product.getAssociatedParts());
+                    costs.productChanged(id);
+                    buildable.update(product);
+                    for(InventoryListener listener: listeners){
+                        listener.productUpdated(product);
+                    }
+                }
             }
+        }finally{
+            snapshotLock.readLock().unlock();
         }
-        return false;
+        if(stored){
+            productChanged(id);
+        }
+        return changed;
+    }
+
+    /**
+     * Method updates the buildable quantity of the products that use a part whose stock changed. Each product is locked while its
+     * quantity is computed, so the last change to any of its parts always leaves the right quantity. The rows of the products whose
+     * quantity changed are refreshed.
+     *
+     * @param partId Id of the part.
+     */
+    private static void partStockChanged(int partId){
+        for(Integer productId: whereUsed.productsUsing(partId)){
+            boolean changed = false;
+            snapshotLock.readLock().lock();
+            try{
+                synchronized(productLock(productId)){
+                    Product product = productsById.get(productId);
+                    if(product != null){
+                        changed = buildable.update(product);
+                    }
+                }
+            }finally{
+                snapshotLock.readLock().unlock();
+            }
+            if(changed){
+                productChanged(productId);
+            }
+        }
+    }
+
+    /**
+     * Method tells the listeners that stock moved. Called while the part or product is locked, so the movements of one object reach
+     * the listeners in the order they happened.
+     *
+     * @param type Kind of movement.
+     * @param part True for a part, false for a product.
+     * @param id Id of the part or product.
+     * @param change Units that came in, negative when units went out. Nothing is told when it is zero.
+     */
+    private static void stockMoved(StockMovement.Type type, boolean part, int id, long change){
+        if(change == 0 || listeners.isEmpty()){
+            return;
+        }
+        StockMovement movement = new StockMovement(System.currentTimeMillis(), type, part, id, change);
+        for(InventoryListener listener: listeners){
+            listener.stockMoved(movement);
+        }
+    }
+
+    /**
+     * @param id Part id.
+     * @return the lock of the part.
+     */
+    private static Object partLock(int id){
+        return partLocks.computeIfAbsent(id, key -> new Object());
+    }
+
+    /**
+     * @param id Product id.
+     * @return the lock of the product.
+     */
+    private static Object productLock(int id){
+        return productLocks.computeIfAbsent(id, key -> new Object());
+    }
+
+    /**
+     * Method brings the allParts list up to date for a part that changed, or saves the id for the end of the current batch.
+     *
+     * @param id Id of the part that changed.
+     */
+    private static void partChanged(int id){
+        if(changeExecutor == null){
+            return;
+        }
+        Batch batch = batches.get();
+        if(batch != null){
+            batch.partIds.add(id);
+        }else{
+            publish(Set.of(id), Set.of());
+        }
+    }
+
+    /**
+     * Method brings the allProducts list up to date for a product that changed, or saves the id for the end of the current batch.
+     *
+     * @param id Id of the product that changed.
+     */
+    private static void productChanged(int id){
+        if(changeExecutor == null){
+            return;
+        }
+        Batch batch = batches.get();
+        if(batch != null){
+            batch.productIds.add(id);
+        }else{
+            publish(Set.of(), Set.of(id));
+        }
+    }
+
+    /**
+     * Method hands a list update to the change executor. Nothing is done while no change executor is set.
+     *
+     * @param changedParts Ids of the parts that changed.
+     * @param changedProducts Ids of the products that changed.
+     */
+    private static void publish(Set<Integer> changedParts, Set<Integer> changedProducts){
+        Executor executor = changeExecutor;
+        if(executor == null || changedParts.isEmpty() && changedProducts.isEmpty()){
+            return;
+        }
+        executor.execute(() -> {
+            synchronized(Inventory.class){
+                allParts.batch(() -> copy(changedParts, partsById, allParts, partPositions));
+                allProducts.batch(() -> copy(changedProducts, productsById, allProducts, productPositions));
+            }
+        });
+    }
+
+    /**
+     * Method makes a list show the current state of the objects that changed. A new object is added at the end and a changed object
+     * is set in its position so the tableview redraws it. Deleted objects are removed together at the end, the other objects keep
+     * their order and only the positions after the first deleted object are indexed again.
+     *
+     * @param ids Ids of the objects that changed.
+     * @param objects Current objects by id, without the deleted ones.
+     * @param list List that shows the objects.
+     * @param positions Id index of the list.
+     * @param <T> Part or Product
+     */
+    private static <T> void copy(Set<Integer> ids, Map<Integer, T> objects, BatchList<T> list, Map<Integer, Integer> positions){
+        int[] deleted = new int[ids.size()];
+        int count = 0;
+        for(Integer id: ids){
+            T current = objects.get(id);
+            Integer position = positions.get(id);
+            if(current != null){
+                if(position == null){
+                    positions.put(id, list.size());
+                    list.add(current);
+                }else{
+                    list.set(position, current);
+                }
+            }else if(position != null){
+                positions.remove(id);
+                deleted[count++] = position;
+            }
+        }
+        if(count == 0){
+            return;
+        }
+        Arrays.sort(deleted, 0, count);
+        list.removePositions(deleted, count);
+        for(int i = deleted[0]; i < list.size(); i++){
+            positions.put(idOf(list.get(i)), i);
+        }
+    }
+
+    private static int idOf(Object object){
+        return object instanceof Part ? ((Part) object).getId() : ((Product) object).getId();
+    }
+
+    /**
+     * Ids changed inside the current batch of a thread.
+     */
+    private static class Batch {
+        private final Set<Integer> partIds = new LinkedHashSet<>();
+        private final Set<Integer> productIds = new LinkedHashSet<>();
     }
 }
@@ -0,0 +1,341 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * InventoryExporter class that writes every part and product of the Inventory to a CSV or JSON lines file.
+ * <p>
+ * The Inventory is copied into primitive arrays while changes are held back, which is much faster than writing the file, so the
+ * file shows the Inventory at one point in time while edits continue. The copy is then put in id order and written without holding
+ * the lock through a fixed size buffer and a FileChannel, no per row objects are kept.
+ * </p>
+ * <p>
+ * CSV rows use the columns type,id,name,price,stock,min,max,extra where extra is the machine id, the company name or the ids of the
+ * associated parts separated by semicolons. JSON lines rows are one object per line with the same fields. CSV files can be loaded
+ * again by the CsvImporter, which links the products to the parts of the same file through the id column.
+ * </p>
+ *
+ * @author José L Dávila Montalvo
+ */
+public class InventoryExporter {
+
+    /**
+     * File formats of the exporter.
+     */
+    public enum Format {
+        CSV,
+        JSON_LINES;
+
+        /**
+         * @param file File being written.
+         * @return JSON_LINES if the file name ends with .json or .jsonl, CSV otherwise.
+         */
+        public static Format of(Path file){
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".json") || name.endsWith(".jsonl") ? JSON_LINES : CSV;
+        }
+    }
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Private properties of the exporter.
+     */
+    private final Format format;
+
+    /**
+     * Constructor for an exporter.
+     *
+     * @param format Format of the files written.
+     */
+    public InventoryExporter(Format format){
+        if(format == null){
+            throw new NullPointerException("Format cannot be null");
+        }
+        this.format = format;
+    }
+
+    /**
+     * Method writes the Inventory to a file, replacing the file if it exists.
+     *
+     * @param file File to write.
+     * @return the number of parts and products written.
+     * @throws IOException if the file cannot be written.
+     */
+    public long exportFile(Path file) throws IOException {
+        Snapshot snapshot = Snapshot.take();
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)){
+            ChannelWriter out = new ChannelWriter(channel);
+            StringBuilder line = out.line;
+            if(format == Format.CSV){
+                line.append("type,id,name,price,stock,min,max,extra");
+                out.endLine();
+            }
+            for(int i = 0; i < snapshot.partCount; i++){
+                writePart(snapshot, snapshot.partOrder[i], line);
+                out.endLine();
+            }
+            for(int i = 0; i < snapshot.productCount; i++){
+                writeProduct(snapshot, snapshot.productOrder[i], line);
+                out.endLine();
+            }
+            out.flush();
+            channel.force(false);
+        }
+        return (long) snapshot.partCount + snapshot.productCount;
+    }
+
+    /**
+     * Method appends one part of the snapshot to the line.
+     */
+    private void writePart(Snapshot s, int i, StringBuilder line){
+        boolean inHouse = s.partCompanies[i] == null;
+        String type = inHouse ? "inhouse" : "outsourced";
+        if(format == Format.CSV){
+            line.append(type).append(',').append(s.partIds[i]).append(',');
+            Csv.appendField(line, s.partNames[i]).append(',');
+            Money.append(line, s.partPrices[i]).append(',').append(s.partStocks[i]).append(',');
+            line.append(s.partMins[i]).append(',').append(s.partMaxes[i]).append(',');
+            if(inHouse){
+                line.append(s.partMachineIds[i]);
+            }else{
+                Csv.appendField(line, s.partCompanies[i]);
+            }
+        }else{
+            line.append("{\"type\":\"").append(type).append("\",\"id\":").append(s.partIds[i]).append(",\"name\":");
+            Json.appendString(line, s.partNames[i]);
+            Money.append(line.append(",\"price\":"), s.partPrices[i]).append(",\"stock\":").append(s.partStocks[i]);
+            line.append(",\"min\":").append(s.partMins[i]).append(",\"max\":").append(s.partMaxes[i]);
+            if(inHouse){
+                line.append(",\"machineId\":").append(s.partMachineIds[i]);
+            }else{
+                line.append(",\"companyName\":");
+                Json.appendString(line, s.partCompanies[i]);
+            }
+            line.append('}');
+        }
+    }
+
+    /**
+     * Method appends one product of the snapshot to the line, with the ids of its associated parts.
+     */
+    private void writeProduct(Snapshot s, int i, StringBuilder line){
+        int from = s.productPartStart[i];
+        int to = s.productPartStart[i + 1];
+        if(format == Format.CSV){
+            line.append("product,").append(s.productIds[i]).append(',');
+            Csv.appendField(line, s.productNames[i]).append(',');
+            Money.append(line, s.productPrices[i]).append(',').append(s.productStocks[i]).append(',');
+            line.append(s.productMins[i]).append(',').append(s.productMaxes[i]).append(',');
+            for(int p = from; p < to; p++){
+                if(p > from){
+                    line.append(';');
+                }
+                line.append(s.productPartIds[p]);
+            }
+        }else{
+            line.append("{\"type\":\"product\",\"id\":").append(s.productIds[i]).append(",\"name\":");
+            Json.appendString(line, s.productNames[i]);
+            Money.append(line.append(",\"price\":"), s.productPrices[i]).append(",\"stock\":").append(s.productStocks[i]);
+            line.append(",\"min\":").append(s.productMins[i]).append(",\"max\":").append(s.productMaxes[i]);
+            line.append(",\"parts\":[");
+            for(int p = from; p < to; p++){
+                if(p > from){
+                    line.append(',');
+                }
+                line.append(s.productPartIds[p]);
+            }
+            line.append("]}");
+        }
+    }
+
+    /**
+     * Copy of the Inventory at one point in time, kept in primitive arrays.
+     */
+    private static class Snapshot {
+        int partCount;
+        int[] partIds;
+        String[] partNames;
+        long[] partPrices;
+        int[] partStocks;
+        int[] partMins;
+        int[] partMaxes;
+        int[] partMachineIds;
+        String[] partCompanies;
+
+        int productCount;
+        int[] productIds;
+        String[] productNames;
+        long[] productPrices;
+        int[] productStocks;
+        int[] productMins;
+        int[] productMaxes;
+        int[] productPartStart;
+        int[] productPartIds;
+
+        /**
+         * Positions of the copied parts and products in id order.
+         */
+        int[] partOrder;
+        int[] productOrder;
+
+        /**
+         * Method copies the Inventory through Inventory.snapshot, so no edit can happen in the middle of the copy. Only the copy is made
+         * while edits are held back, the id order is found afterwards.
+         *
+         * @return the copy.
+         */
+        static Snapshot take(){
+            Snapshot s = new Snapshot();
+            Inventory.snapshot(() -> {
+                List<Part> parts = new ArrayList<>(Inventory.partValues());
+                int n = parts.size();
+                s.partCount = n;
+                s.partIds = new int[n];
+                s.partNames = new String[n];
+                s.partPrices = new long[n];
+                s.partStocks = new int[n];
+                s.partMins = new int[n];
+                s.partMaxes = new int[n];
+                s.partMachineIds = new int[n];
+                s.partCompanies = new String[n];
+                for(int i = 0; i < n; i++){
+                    Part part = parts.get(i);
+                    s.partIds[i] = part.getId();
+                    s.partNames[i] = part.getName();
+                    s.partPrices[i] = part.getPriceCents();
+                    s.partStocks[i] = part.getStock();
+                    s.partMins[i] = part.getMin();
+                    s.partMaxes[i] = part.getMax();
+                    if(part instanceof InHouse){
+                        s.partMachineIds[i] = ((InHouse) part).getMachineId();
+                    }else{
+                        String company = ((OutSourced) part).getCompanyName();
+                        s.partCompanies[i] = company == null ? "" : company;
+                    }
+                }
+
+                List<Product> products = new ArrayList<>(Inventory.productValues());
+                int m = products.size();
+                int links = 0;
+                for(int i = 0; i < m; i++){
+                    links += products.get(i).getAssociatedParts().size();
+                }
+                s.productCount = m;
+                s.productIds = new int[m];
+                s.productNames = new String[m];
+                s.productPrices = new long[m];
+                s.productStocks = new int[m];
+                s.productMins = new int[m];
+                s.productMaxes = new int[m];
+                s.productPartStart = new int[m + 1];
+                s.productPartIds = new int[links];
+                int link = 0;
+                for(int i = 0; i < m; i++){
+                    Product product = products.get(i);
+                    s.productIds[i] = product.getId();
+                    s.productNames[i] = product.getName();
+                    s.productPrices[i] = product.getPriceCents();
+                    s.productStocks[i] = product.getStock();
+                    s.productMins[i] = product.getMin();
+                    s.productMaxes[i] = product.getMax();
+                    s.productPartStart[i] = link;
+                    for(Part part: product.getAssociatedParts()){
+                        s.productPartIds[link++] = part.getId();
+                    }
+                }
+                s.productPartStart[m] = link;
+                return null;
+            });
+            s.partOrder = idOrder(s.partIds, s.partCount);
+            s.productOrder = idOrder(s.productIds, s.productCount);
+            return s;
+        }
+
+        /**
+         * Method sorts positions by id with one primitive sort, the id in the high half of each key and the position in the low half.
+         *
+         * @param ids Ids of the copied objects.
+         * @param count Number of objects.
+         * @return the positions of the objects in increasing id order.
+         */
+        private static int[] idOrder(int[] ids, int count){
+            long[] keys = new long[count];
+            for(int i = 0; i < count; i++){
+                keys[i] = (long) ids[i] << 32 | i;
+            }
+            Arrays.sort(keys);
+            int[] order = new int[count];
+            for(int i = 0; i < count; i++){
+                order[i] = (int) keys[i];
+            }
+            return order;
+        }
+    }
+
+    /**
+     * Encodes lines to UTF-8 into a fixed size direct buffer and writes the buffer to the channel when it is full.
+     */
+    private static class ChannelWriter {
+
+        private final FileChannel channel;
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final StringBuilder line = new StringBuilder(256);
+
+        ChannelWriter(FileChannel channel){
+            this.channel = channel;
+        }
+
+        /**
+         * Method ends the current line and moves it into the buffer.
+         */
+        void endLine() throws IOException {
+            line.append('\n');
+            CharBuffer chars = CharBuffer.wrap(line);
+            while(true){
+                CoderResult result = encoder.encode(chars, bytes, false);
+                if(result.isOverflow()){
+                    drain();
+                }else if(result.isUnderflow()){
+                    break;
+                }else{
+                    result.throwException();
+                }
+            }
+            line.setLength(0);
+        }
+
+        /**
+         * Method writes everything left in the buffer.
+         */
+        void flush() throws IOException {
+            drain();
+        }
+
+        private void drain() throws IOException {
+            bytes.flip();
+            while(bytes.hasRemaining()){
+                channel.write(bytes);
+            }
+            bytes.clear();
+        }
+    }
+}
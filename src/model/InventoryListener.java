@@ -0,0 +1,57 @@
+package model;
+
+/**
+ * Interface for objects that need to know when the Inventory changes.
+ * Listeners are registered with Inventory.addListener and are called after a part or product is added, updated or deleted,
+ * on the thread that made the change. Every method has an empty default so a listener only implements the changes it needs.
+ *
+ * @author José L Dávila Montalvo
+ */
+public interface InventoryListener {
+
+    /**
+     * @param part Part object that was added.
+     */
+    default void partAdded(Part part){
+    }
+
+    /**
+     * @param part Part object that was updated.
+     */
+    default void partUpdated(Part part){
+    }
+
+    /**
+     * @param part Part object that was deleted.
+     */
+    default void partDeleted(Part part){
+    }
+
+    /**
+     * @param product Product object that was added.
+     */
+    default void productAdded(Product product){
+    }
+
+    /**
+     * Called when a product is updated, including when parts are added to or removed from its associated parts.
+     *
+     * @param product Product object that was updated.
+     */
+    default void productUpdated(Product product){
+    }
+
+    /**
+     * @param product Product object that was deleted.
+     */
+    default void productDeleted(Product product){
+    }
+
+    /**
+     * Called when units of a part or product come in or go out, before the call that tells about the added, changed or deleted object.
+     *
+     * @param movement Stock movement.
+     */
+    default void stockMoved(StockMovement movement){
+    }
+}
@@ -0,0 +1,565 @@
+package model;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * InventoryLog class that saves the Inventory to disk so data is not lost when the program exits.
+ * <p>
+ * Every change to a part or product is written as one record to an append-only write-ahead log. Changes are queued by the thread that
+ * makes them and written by a background thread that groups every record waiting in the queue into a single write followed by a single
+ * fsync, so saving many changes in a row does not wait on the disk once per change.
+ * </p>
+ * <p>
+ * When the log grows past a number of records, it is compacted into a snapshot that holds only the latest record of every part and
+ * product, and the log starts over. On startup the snapshot is loaded, the log is replayed over it and a new snapshot is written.
+ * </p>
+ * <p>
+ * Every line starts with the length and CRC32 of its record, so a record that was only partly written is found, and every field of a
+ * record is read before the record is used. Replay stops at the first damaged record of the log, which can only be the last record if
+ * the program stopped while writing it, and the log is cut back to the end of the last good record. A damaged snapshot is never
+ * used: it is written to a temporary file and moved in place in one step, so damage there is reported instead of being replaced by a
+ * snapshot that misses part of the inventory.
+ * </p>
+ * <p>
+ * The stock of every part and product is also kept by the StockLedger, which gives its stock back to the Inventory on startup.
+ * When the log writes after a ledger, every group of records is written only once the stock movements made before them are on disk
+ * in the ledger, so the saved stock is never ahead of the ledger after the program stops.
+ * </p>
+ *
+ * @author José L Dávila Montalvo
+ */
+public class InventoryLog implements InventoryListener, Closeable {
+
+    /**
+     * Default number of records written to the log before it is compacted into the snapshot.
+     */
+    public static final int DEFAULT_COMPACT_THRESHOLD = 100_000;
+
+    /**
+     * Most records written by a single group commit.
+     */
+    private static final int MAX_BATCH = 8192;
+
+    /**
+     * Record placed in the queue to stop the writer thread.
+     */
+    private static final String STOP = "";
+
+    /**
+     * Mark at the start of a line that is followed by the length in bytes and the CRC32 of the record. Lines written before records
+     * were framed have no mark and are only checked by reading every field.
+     */
+    private static final char FRAME = '~';
+
+    /**
+     * Private properties of the log.
+     */
+    private final Path snapshotFile;
+    private final Path logFile;
+    private final int compactThreshold;
+    private final boolean created;
+    private final BlockingQueue<String> pending = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private FileChannel channel;
+    private int recordsSinceSnapshot;
+    private IOException failure;
+    private volatile StockLedger ledger;
+
+    /**
+     * Number of records queued and number of records that are safely on disk. Guarded by this object.
+     */
+    private long queued;
+    private long durable;
+
+    /**
+     * Constructor opens the log files, use the open method to also recover the Inventory.
+     *
+     * @param directory Folder that holds the snapshot and log files.
+     * @param compactThreshold Number of log records written before the log is compacted.
+     * @throws IOException if the files cannot be opened.
+     */
+    private InventoryLog(Path directory, int compactThreshold) throws IOException {
+        Files.createDirectories(directory);
+        this.snapshotFile = directory.resolve("inventory.snapshot");
+        this.logFile = directory.resolve("inventory.log");
+        this.compactThreshold = compactThreshold;
+        this.created = !Files.exists(snapshotFile) && !Files.exists(logFile);
+        this.writer = new Thread(this::writeLoop, "inventory-log");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Method loads the saved inventory from a folder into the Inventory class and starts logging every change made after that.
+     *
+     * @param directory Folder that holds the snapshot and log files. It is created if it does not exist.
+     * @return the open log.
+     * @throws IOException if the files cannot be read or written.
+     */
+    public static InventoryLog open(Path directory) throws IOException {
+        return open(directory, DEFAULT_COMPACT_THRESHOLD);
+    }
+
+    /**
+     * Method loads the saved inventory from a folder into the Inventory class and starts logging every change made after that.
+     *
+     * @param directory Folder that holds the snapshot and log files. It is created if it does not exist.
+     * @param compactThreshold Number of log records written before the log is compacted.
+     * @return the open log.
+     * @throws IOException if the files cannot be read or written.
+     */
+    public static InventoryLog open(Path directory, int compactThreshold) throws IOException {
+        InventoryLog log = new InventoryLog(directory, compactThreshold);
+        log.recover();
+        log.channel = FileChannel.open(log.logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        log.channel.truncate(0);
+        Inventory.addListener(log);
+        log.writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(log::closeQuietly, "inventory-log-shutdown"));
+        return log;
+    }
+
+    /**
+     * @return true if no saved inventory existed when the log was opened.
+     */
+    public boolean isNew(){
+        return created;
+    }
+
+    /**
+     * Method makes the log write its records only after the stock movements made before them are safely in the ledger. Movements
+     * are made before the records of the same change, so a record is never on disk without its movements. Records made after the
+     * ledger is closed are written without waiting.
+     *
+     * @param ledger Stock ledger of the Inventory.
+     */
+    public void writeAfter(StockLedger ledger){
+        this.ledger = ledger;
+    }
+
+    /**
+     * Method waits until every change made before the call is safely on disk.
+     *
+     * @throws IOException if the writer thread failed.
+     */
+    public synchronized void sync() throws IOException {
+        long target = queued;
+        while(durable < target && failure == null){
+            try{
+                wait();
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the log", e);
+            }
+        }
+        if(failure != null){
+            throw failure;
+        }
+    }
+
+    /**
+     * Method stops logging, writes every queued change and closes the log file.
+     *
+     * @throws IOException if the last records could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        Inventory.removeListener(this);
+        if(writer.isAlive()){
+            pending.add(STOP);
+            try{
+                writer.join();
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+        if(channel != null && channel.isOpen()){
+            channel.close();
+        }
+        if(failure != null){
+            throw failure;
+        }
+    }
+
+    @Override
+    public void partAdded(Part part){
+        append(InventoryRecords.encodePart(part));
+    }
+
+    @Override
+    public void partUpdated(Part part){
+        append(InventoryRecords.encodePart(part));
+    }
+
+    @Override
+    public void partDeleted(Part part){
+        append(InventoryRecords.encodeDeletePart(part.getId()));
+    }
+
+    @Override
+    public void productAdded(Product product){
+        append(InventoryRecords.encodeProduct(product));
+    }
+
+    @Override
+    public void productUpdated(Product product){
+        append(InventoryRecords.encodeProduct(product));
+    }
+
+    @Override
+    public void productDeleted(Product product){
+        append(InventoryRecords.encodeDeleteProduct(product.getId()));
+    }
+
+    /**
+     * Method queues a record for the writer thread. The record is built by the thread that made the change so it holds the values at
+     * the time of the change.
+     *
+     * @param record Record line without a line break.
+     */
+    private void append(String record){
+        synchronized (this){
+            queued++;
+        }
+        pending.add(record);
+    }
+
+    /**
+     * Writer thread loop. Takes every record waiting in the queue, writes them with one write call and one fsync and compacts the log
+     * when it has grown past the threshold.
+     */
+    private void writeLoop(){
+        List<String> batch = new ArrayList<>(MAX_BATCH);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 16);
+        boolean running = true;
+        while(running){
+            try{
+                batch.add(pending.take());
+                pending.drainTo(batch, MAX_BATCH - 1);
+
+                buffer.reset();
+                int written = 0;
+                for(String record: batch){
+                    if(record == STOP){
+                        running = false;
+                        continue;
+                    }
+                    buffer.write(frame(record).getBytes(StandardCharsets.UTF_8));
+                    buffer.write('\n');
+                    written++;
+                }
+
+                if(written > 0){
+                    StockLedger first = ledger;
+                    if(first != null){
+                        first.awaitDurable();
+                    }
+                    ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+                    while(bytes.hasRemaining()){
+                        channel.write(bytes);
+                    }
+                    channel.force(false);
+                    recordsSinceSnapshot += written;
+                }
+
+                synchronized (this){
+                    durable += written;
+                    notifyAll();
+                }
+
+                if(recordsSinceSnapshot >= compactThreshold){
+                    compact();
+                }
+            }catch (InterruptedException e){
+                running = false;
+            }catch (IOException e){
+                synchronized (this){
+                    failure = e;
+                    notifyAll();
+                }
+                running = false;
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Method folds the snapshot and the log into a new snapshot and empties the log.
+     * Only the files are read so the Inventory is not touched by the writer thread.
+     *
+     * @throws IOException if the files cannot be read or written.
+     */
+    private void compact() throws IOException {
+        writeSnapshot(fold(false).values());
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        recordsSinceSnapshot = 0;
+    }
+
+    /**
+     * Method reads the snapshot and the log and keeps the latest record of every part and product, plus an IDS record with the next
+     * ids that can be handed out.
+     * When recovering, reading stops at the first damaged record of the log and the log is cut back to the end of the last good
+     * record. Any other damaged record stops with an exception, so no record after it is lost by a new snapshot.
+     *
+     * @param recovering True when called on startup, before the log is opened for writing.
+     * @return the latest records in the order they were first written.
+     * @throws IOException if the files cannot be read, or a record of the snapshot, or of the log while compacting, is damaged.
+     */
+    private Map<String, String> fold(boolean recovering) throws IOException {
+        Map<String, String> latest = new LinkedHashMap<>();
+        int[] nextIds = {1, 1};
+        for(Path file: new Path[]{snapshotFile, logFile}){
+            if(!Files.exists(file)){
+                continue;
+            }
+            long good = readRecords(file, latest, nextIds);
+            long size = Files.size(file);
+            if(good == size){
+                continue;
+            }
+            if(!recovering || !file.equals(logFile)){
+                throw new IOException("Damaged record at byte " + good + " of " + file);
+            }
+            try(FileChannel log = FileChannel.open(file, StandardOpenOption.WRITE)){
+                log.truncate(good);
+                log.force(true);
+            }
+            System.err.println("Dropped " + (size - good) + " bytes of a record that was not completely written to " + file);
+        }
+        latest.put(InventoryRecords.IDS, InventoryRecords.encodeIds(nextIds[0], nextIds[1]));
+        return latest;
+    }
+
+    /**
+     * Method reads the records of one file in order until the end of the file or the first damaged record.
+     *
+     * @param file Snapshot or log file.
+     * @param latest Latest record of every part and product, updated with every good record.
+     * @param nextIds Next part id and next product id, raised past every id read.
+     * @return the number of bytes up to the end of the last good record.
+     * @throws IOException if the file cannot be read.
+     */
+    private static long readRecords(Path file, Map<String, String> latest, int[] nextIds) throws IOException {
+        long good = 0;
+        long position = 0;
+        byte[] chunk = new byte[1 << 16];
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        try(InputStream in = Files.newInputStream(file)){
+            int read;
+            while((read = in.read(chunk)) != -1){
+                int start = 0;
+                for(int i = 0; i < read; i++){
+                    if(chunk[i] != '\n'){
+                        continue;
+                    }
+                    line.write(chunk, start, i - start);
+                    start = i + 1;
+                    String record = unframe(line.toByteArray());
+                    line.reset();
+                    if(record == null || !apply(record, latest, nextIds)){
+                        return good;
+                    }
+                    good = position + start;
+                }
+                // a line that does not end in a line break was not completely written
+                line.write(chunk, start, read - start);
+                position += read;
+            }
+        }
+        return good;
+    }
+
+    /**
+     * Method keeps one record if every field of it can be read.
+     *
+     * @param record Record line without its frame.
+     * @param latest Latest record of every part and product.
+     * @param nextIds Next part id and next product id.
+     * @return false if the record is damaged.
+     */
+    private static boolean apply(String record, Map<String, String> latest, int[] nextIds){
+        if(record.isEmpty()){
+            return true;
+        }
+        String[] fields = InventoryRecords.split(record);
+        try{
+            InventoryRecords.check(fields);
+        }catch (IllegalArgumentException e){
+            return false;
+        }
+        String key = InventoryRecords.key(fields);
+
+        // every id ever written is remembered so it is not handed out again, even if the object was deleted
+        if(InventoryRecords.IDS.equals(fields[0])){
+            nextIds[0] = Math.max(nextIds[0], Integer.parseInt(fields[1]));
+            nextIds[1] = Math.max(nextIds[1], Integer.parseInt(fields[2]));
+        }else if(key.startsWith(InventoryRecords.PART)){
+            nextIds[0] = Math.max(nextIds[0], Integer.parseInt(fields[1]) + 1);
+        }else{
+            nextIds[1] = Math.max(nextIds[1], Integer.parseInt(fields[1]) + 1);
+        }
+        if(InventoryRecords.isDelete(fields)){
+            latest.remove(key);
+        }else{
+            latest.put(key, record);
+        }
+        return true;
+    }
+
+    /**
+     * @param record Record line without a line break.
+     * @return the line written for the record, with the length in bytes and the CRC32 of the record in front of it.
+     */
+    private static String frame(String record){
+        byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return FRAME + Integer.toString(bytes.length) + ':' + Long.toHexString(crc.getValue()) + '\t' + record;
+    }
+
+    /**
+     * Method checks the length and CRC32 of a line and returns its record.
+     *
+     * @param line Bytes of a line without the line break.
+     * @return the record, or null if the line is damaged.
+     */
+    private static String unframe(byte[] line){
+        if(line.length == 0 || line[0] != FRAME){
+            return decode(line, 0, line.length);
+        }
+        int colon = 1;
+        long length = 0;
+        for(; colon < line.length && line[colon] >= '0' && line[colon] <= '9' && colon < 11; colon++){
+            length = length * 10 + (line[colon] - '0');
+        }
+        if(colon == 1 || colon == line.length || line[colon] != ':'){
+            return null;
+        }
+        int tab = colon + 1;
+        long checksum = 0;
+        for(; tab < line.length && Character.digit(line[tab], 16) >= 0 && tab < colon + 9; tab++){
+            checksum = checksum << 4 | Character.digit(line[tab], 16);
+        }
+        if(tab == colon + 1 || tab == line.length || line[tab] != '\t' || length != line.length - tab - 1){
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(line, tab + 1, (int) length);
+        if(crc.getValue() != checksum){
+            return null;
+        }
+        return decode(line, tab + 1, (int) length);
+    }
+
+    /**
+     * @param line Bytes of a line.
+     * @param offset First byte of the record.
+     * @param length Number of bytes of the record.
+     * @return the text of the bytes, or null if they are not valid UTF-8.
+     */
+    private static String decode(byte[] line, int offset, int length){
+        try{
+            return StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(line, offset, length)).toString();
+        }catch (CharacterCodingException e){
+            return null;
+        }
+    }
+
+    /**
+     * Method writes records to a temporary file and moves it over the snapshot file in one step.
+     *
+     * @param records Record lines to write.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    private void writeSnapshot(Iterable<String> records) throws IOException {
+        Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try(FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            BufferedWriter writer = new BufferedWriter(Channels.newWriter(out, StandardCharsets.UTF_8.newEncoder(), 1 << 16))){
+            for(String record: records){
+                writer.write(frame(record));
+                writer.write('\n');
+            }
+            writer.flush();
+            out.force(true);
+        }
+        Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Method rebuilds the Inventory from the snapshot and the log, then writes a new snapshot so the log can start empty.
+     * Parts are loaded before products because products refer to their associated parts by id. Every record was read completely
+     * by fold, a record that still cannot be loaded stops the recovery so the new snapshot never leaves it out.
+     *
+     * @throws IOException if the files cannot be read or written, or a record cannot be loaded.
+     */
+    private void recover() throws IOException {
+        Map<String, String> latest = fold(true);
+        List<String[]> products = new ArrayList<>();
+        for(String line: latest.values()){
+            String[] fields = InventoryRecords.split(line);
+            if(InventoryRecords.IDS.equals(fields[0])){
+                Inventory.getPartIds().advancePast(Integer.parseInt(fields[1]) - 1);
+                Inventory.getProductIds().advancePast(Integer.parseInt(fields[2]) - 1);
+            }else if(InventoryRecords.PART.equals(fields[0])){
+                try{
+                    Inventory.addPart(InventoryRecords.decodePart(fields));
+                }catch (IllegalArgumentException e){
+                    throw new IOException("Could not load part record: " + line, e);
+                }
+            }else{
+                products.add(fields);
+            }
+        }
+        for(String[] fields: products){
+            try{
+                Inventory.addProduct(InventoryRecords.decodeProduct(fields));
+            }catch (IllegalArgumentException e){
+                throw new IOException("Could not load product record: " + String.join("\t", fields), e);
+            }
+        }
+
+        if(!created){
+            List<String> records = new ArrayList<>(latest.size());
+            records.add(InventoryRecords.encodeIds(Inventory.getPartIds().peek(), Inventory.getProductIds().peek()));
+            for(Part part: Inventory.partValues()){
+                records.add(InventoryRecords.encodePart(part));
+            }
+            for(Product product: Inventory.productValues()){
+                records.add(InventoryRecords.encodeProduct(product));
+            }
+            writeSnapshot(records);
+        }
+    }
+
+    /**
+     * Method closes the log from the shutdown hook.
+     */
+    private void closeQuietly(){
+        try{
+            close();
+        }catch (IOException e){
+            System.err.println("Could not save the inventory log: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package model;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * InventoryRecords class that converts part and product objects to and from single line text records.
+ * Records are used by the InventoryLog class for the write-ahead log and the snapshot file.
+ * <p>
+ * Fields are separated by tabs. Backslashes, tabs and line breaks inside names are escaped so every record is exactly one line.
+ * The first field is the record type:
+ * PART id type name price stock min max machineId-or-companyName (type is I for Inhouse or O for Outsourced)
+ * PRODUCT id name price stock min max partIds (partIds separated by commas)
+ * DELETE_PART id
+ * DELETE_PRODUCT id
+ * IDS nextPartId nextProductId
+ * </p>
+ *
+ * @author José L Dávila Montalvo
+ */
+public final class InventoryRecords {
+
+    /**
+     * Record types.
+     */
+    public static final String PART = "PART";
+    public static final String PRODUCT = "PRODUCT";
+    public static final String DELETE_PART = "DELETE_PART";
+    public static final String DELETE_PRODUCT = "DELETE_PRODUCT";
+    public static final String IDS = "IDS";
+
+    private InventoryRecords(){
+    }
+
+    /**
+     * Method creates the record of a part.
+     *
+     * @param part Part object to convert.
+     * @return the record line without a line break.
+     */
+    public static String encodePart(Part part){
+        StringBuilder line = new StringBuilder(64);
+        line.append(PART).append('\t').append(part.getId()).append('\t');
+        line.append(part instanceof InHouse ? 'I' : 'O').append('\t');
+        escape(line, part.getName()).append('\t');
+        Money.append(line, part.getPriceCents()).append('\t');
+        line.append(part.getStock()).append('\t');
+        line.append(part.getMin()).append('\t');
+        line.append(part.getMax()).append('\t');
+        if(part instanceof InHouse){
+            line.append(((InHouse) part).getMachineId());
+        }else{
+            escape(line, ((OutSourced) part).getCompanyName());
+        }
+        return line.toString();
+    }
+
+    /**
+     * Method creates the record of a product, including the ids of its associated parts.
+     *
+     * @param product Product object to convert.
+     * @return the record line without a line break.
+     */
+    public static String encodeProduct(Product product){
+        StringBuilder line = new StringBuilder(64);
+        line.append(PRODUCT).append('\t').append(product.getId()).append('\t');
+        escape(line, product.getName()).append('\t');
+        Money.append(line, product.getPriceCents()).append('\t');
+        line.append(product.getStock()).append('\t');
+        line.append(product.getMin()).append('\t');
+        line.append(product.getMax()).append('\t');
+        List<Part> parts = product.getAssociatedParts();
+        for(int i = 0; i < parts.size(); i++){
+            if(i > 0){
+                line.append(',');
+            }
+            line.append(parts.get(i).getId());
+        }
+        return line.toString();
+    }
+
+    /**
+     * @param partId Id of the deleted part.
+     * @return the record line without a line break.
+     */
+    public static String encodeDeletePart(int partId){
+        return DELETE_PART + '\t' + partId;
+    }
+
+    /**
+     * @param productId Id of the deleted product.
+     * @return the record line without a line break.
+     */
+    public static String encodeDeleteProduct(int productId){
+        return DELETE_PRODUCT + '\t' + productId;
+    }
+
+    /**
+     * Method creates the record that saves the next ids of the allocators so deleted ids are not handed out again after a restart.
+     *
+     * @param nextPartId Next part id that will be handed out.
+     * @param nextProductId Next product id that will be handed out.
+     * @return the record line without a line break.
+     */
+    public static String encodeIds(int nextPartId, int nextProductId){
+        return IDS + '\t' + nextPartId + '\t' + nextProductId;
+    }
+
+    /**
+     * Method splits a record line into its fields and removes the escaping.
+     *
+     * @param line Record line without a line break.
+     * @return the fields of the record.
+     */
+    public static String[] split(String line){
+        List<String> fields = new ArrayList<>(10);
+        StringBuilder field = new StringBuilder();
+        for(int i = 0; i < line.length(); i++){
+            char c = line.charAt(i);
+            if(c == '\t'){
+                fields.add(field.toString());
+                field.setLength(0);
+            }else if(c == '\\' && i + 1 < line.length()){
+                char next = line.charAt(++i);
+                field.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            }else{
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Method returns the key of the object a record is about. A delete record has the same key as the record of the object it deletes.
+     *
+     * @param fields Fields of a record.
+     * @return the key, for example PART:12
+     * @throws IllegalArgumentException if the record type is unknown.
+     */
+    public static String key(String[] fields){
+        switch(fields[0]){
+            case PART:
+            case DELETE_PART:
+                return PART + ':' + fields[1];
+            case PRODUCT:
+            case DELETE_PRODUCT:
+                return PRODUCT + ':' + fields[1];
+            case IDS:
+                return IDS;
+            default:
+                throw new IllegalArgumentException("Unknown record type " + fields[0]);
+        }
+    }
+
+    /**
+     * @param fields Fields of a record.
+     * @return true if the record deletes a part or product.
+     */
+    public static boolean isDelete(String[] fields){
+        return DELETE_PART.equals(fields[0]) || DELETE_PRODUCT.equals(fields[0]);
+    }
+
+    /**
+     * Method checks that every field of a record can be read, without changing the Inventory. A record that passes can be decoded.
+     *
+     * @param fields Fields of a record.
+     * @throws IllegalArgumentException if the record is damaged.
+     */
+    public static void check(String[] fields){
+        switch(fields[0]){
+            case PART:
+                decodePart(fields);
+                break;
+            case PRODUCT:
+                if(fields.length != 8){
+                    throw new IllegalArgumentException("Damaged product record");
+                }
+                Integer.parseInt(fields[1]);
+                decodePrice(fields[3]);
+                Integer.parseInt(fields[4]);
+                Integer.parseInt(fields[5]);
+                Integer.parseInt(fields[6]);
+                partIds(fields[7]);
+                break;
+            case DELETE_PART:
+            case DELETE_PRODUCT:
+                if(fields.length != 2){
+                    throw new IllegalArgumentException("Damaged delete record");
+                }
+                Integer.parseInt(fields[1]);
+                break;
+            case IDS:
+                if(fields.length != 3){
+                    throw new IllegalArgumentException("Damaged ids record");
+                }
+                Integer.parseInt(fields[1]);
+                Integer.parseInt(fields[2]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown record type " + fields[0]);
+        }
+    }
+
+    /**
+     * Method creates a part object from the fields of a PART record.
+     *
+     * @param fields Fields of a PART record.
+     * @return a new InHouse or OutSourced part.
+     * @throws IllegalArgumentException if the record is damaged.
+     */
+    public static Part decodePart(String[] fields){
+        if(fields.length != 9){
+            throw new IllegalArgumentException("Damaged part record");
+        }
+        int id = Integer.parseInt(fields[1]);
+        String name = fields[3];
+        long price = decodePrice(fields[4]);
+        int stock = Integer.parseInt(fields[5]);
+        int min = Integer.parseInt(fields[6]);
+        int max = Integer.parseInt(fields[7]);
+        if("I".equals(fields[2])){
+            return new InHouse(id, name, price, stock, min, max, Integer.parseInt(fields[8]));
+        }
+        return new OutSourced(id, name, price, stock, min, max, fields[8]);
+    }
+
+    /**
+     * Method creates a product object from the fields of a PRODUCT record.
+     * Associated parts are found in the Inventory by id, so parts must be loaded before products. Parts that no longer exist are skipped.
+     *
+     * @param fields Fields of a PRODUCT record.
+     * @return a new Product.
+     * @throws IllegalArgumentException if the record is damaged.
+     */
+    public static Product decodeProduct(String[] fields){
+        if(fields.length != 8){
+            throw new IllegalArgumentException("Damaged product record");
+        }
+        ObservableList<Part> parts = FXCollections.observableArrayList();
+        for(int partId: partIds(fields[7])){
+            Part part = Inventory.lookupPart(partId);
+            if(part != null){
+                parts.add(part);
+            }
+        }
+        return new Product(Integer.parseInt(fields[1]), fields[2], decodePrice(fields[3]), Integer.parseInt(fields[4]),
+                Integer.parseInt(fields[5]), Integer.parseInt(fields[6]), parts);
+    }
+
+    /**
+     * @param field Part ids field of a PRODUCT record.
+     * @return the part ids, empty if the product has no associated parts.
+     */
+    private static int[] partIds(String field){
+        if(field.isEmpty()){
+            return new int[0];
+        }
+        String[] ids = field.split(",");
+        int[] partIds = new int[ids.length];
+        for(int i = 0; i < ids.length; i++){
+            partIds[i] = Integer.parseInt(ids[i]);
+        }
+        return partIds;
+    }
+
+    /**
+     * Method reads a price field. Records written before prices were kept in cents hold a double, which can use an exponent.
+     *
+     * @param field Price field of a record.
+     * @return the price in cents.
+     */
+    private static long decodePrice(String field){
+        try{
+            return Money.parse(field);
+        }catch (NumberFormatException e){
+            return Money.of(Double.parseDouble(field));
+        }
+    }
+
+    /**
+     * Method appends a text value to a record with backslashes, tabs and line breaks escaped.
+     *
+     * @param line Record being built.
+     * @param value Text to append.
+     * @return the record being built.
+     */
+    private static StringBuilder escape(StringBuilder line, String value){
+        if(value == null){
+            return line;
+        }
+        for(int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            switch(c){
+                case '\\': line.append("\\\\"); break;
+                case '\t': line.append("\\t"); break;
+                case '\n': line.append("\\n"); break;
+                case '\r': line.append("\\r"); break;
+                default: line.append(c);
+            }
+        }
+        return line;
+    }
+}
@@ -0,0 +1,238 @@
+package model;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Json class with the JSON rules shared by the exporter and the HTTP server.
+ * Objects are read into maps, arrays into lists, numbers into BigDecimal so whole numbers can be checked exactly, and true, false and
+ * null into Boolean or null. Only the small documents sent by clients are read, the whole text is kept in memory.
+ *
+ * @author José L Dávila Montalvo
+ */
+public final class Json {
+
+    private Json(){
+    }
+
+    /**
+     * Method reads a JSON object.
+     *
+     * @param text JSON text of one object.
+     * @return the fields of the object in the order they were written.
+     * @throws IllegalArgumentException if the text is not a JSON object.
+     */
+    public static Map<String, Object> parseObject(String text){
+        Reader reader = new Reader(text);
+        reader.skipSpace();
+        if(!reader.peek('{')){
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> object = (Map<String, Object>) reader.value();
+        reader.skipSpace();
+        if(reader.position < text.length()){
+            throw new IllegalArgumentException("Unexpected text after the JSON object");
+        }
+        return object;
+    }
+
+    /**
+     * Method appends a JSON string with quotes, backslashes and control characters escaped.
+     *
+     * @param line Line being built.
+     * @param value Text to append, null is written as null.
+     * @return the line being built.
+     */
+    public static StringBuilder appendString(StringBuilder line, String value){
+        if(value == null){
+            return line.append("null");
+        }
+        line.append('"');
+        for(int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            switch(c){
+                case '"': line.append("\\\""); break;
+                case '\\': line.append("\\\\"); break;
+                case '\n': line.append("\\n"); break;
+                case '\r': line.append("\\r"); break;
+                case '\t': line.append("\\t"); break;
+                default:
+                    if(c < 0x20){
+                        line.append(String.format("\\u%04x", (int) c));
+                    }else{
+                        line.append(c);
+                    }
+            }
+        }
+        return line.append('"');
+    }
+
+    /**
+     * Reads JSON values from a string.
+     */
+    private static class Reader {
+
+        private final String text;
+        private int position;
+
+        Reader(String text){
+            this.text = text;
+        }
+
+        Object value(){
+            skipSpace();
+            if(position >= text.length()){
+                throw error("Unexpected end of the JSON text");
+            }
+            char c = text.charAt(position);
+            switch(c){
+                case '{': return object();
+                case '[': return array();
+                case '"': return string();
+                case 't': return literal("true", Boolean.TRUE);
+                case 'f': return literal("false", Boolean.FALSE);
+                case 'n': return literal("null", null);
+                default:
+                    if(c == '-' || (c >= '0' && c <= '9')){
+                        return number();
+                    }
+                    throw error("Unexpected character '" + c + "'");
+            }
+        }
+
+        private Map<String, Object> object(){
+            Map<String, Object> object = new LinkedHashMap<>();
+            position++;
+            skipSpace();
+            if(peek('}')){
+                position++;
+                return object;
+            }
+            while(true){
+                skipSpace();
+                if(!peek('"')){
+                    throw error("Expected a field name");
+                }
+                String name = string();
+                skipSpace();
+                expect(':');
+                object.put(name, value());
+                skipSpace();
+                if(peek(',')){
+                    position++;
+                }else{
+                    expect('}');
+                    return object;
+                }
+            }
+        }
+
+        private List<Object> array(){
+            List<Object> array = new ArrayList<>();
+            position++;
+            skipSpace();
+            if(peek(']')){
+                position++;
+                return array;
+            }
+            while(true){
+                array.add(value());
+                skipSpace();
+                if(peek(',')){
+                    position++;
+                }else{
+                    expect(']');
+                    return array;
+                }
+            }
+        }
+
+        private String string(){
+            StringBuilder value = new StringBuilder();
+            position++;
+            while(position < text.length()){
+                char c = text.charAt(position++);
+                if(c == '"'){
+                    return value.toString();
+                }
+                if(c != '\\'){
+                    value.append(c);
+                    continue;
+                }
+                if(position >= text.length()){
+                    break;
+                }
+                char escaped = text.charAt(position++);
+                switch(escaped){
+                    case '"': value.append('"'); break;
+                    case '\\': value.append('\\'); break;
+                    case '/': value.append('/'); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'n': value.append('\n'); break;
+                    case 'r': value.append('\r'); break;
+                    case 't': value.append('\t'); break;
+                    case 'u':
+                        if(position + 4 > text.length()){
+                            throw error("Incomplete unicode escape");
+                        }
+                        try{
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        }catch (NumberFormatException e){
+                            throw error("Invalid unicode escape");
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        throw error("Invalid escape \\" + escaped);
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        private BigDecimal number(){
+            int start = position;
+            while(position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0){
+                position++;
+            }
+            try{
+                return new BigDecimal(text.substring(start, position));
+            }catch (NumberFormatException e){
+                throw error("Invalid number");
+            }
+        }
+
+        private Object literal(String word, Object value){
+            if(!text.startsWith(word, position)){
+                throw error("Unexpected text");
+            }
+            position += word.length();
+            return value;
+        }
+
+        void skipSpace(){
+            while(position < text.length() && Character.isWhitespace(text.charAt(position))){
+                position++;
+            }
+        }
+
+        boolean peek(char c){
+            return position < text.length() && text.charAt(position) == c;
+        }
+
+        private void expect(char c){
+            if(!peek(c)){
+                throw error("Expected '" + c + "'");
+            }
+            position++;
+        }
+
+        private IllegalArgumentException error(String message){
+            return new IllegalArgumentException(message + " at position " + position);
+        }
+    }
+}
@@ -0,0 +1,640 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * MappedPartStore class that keeps part records in a binary file with a fixed layout instead of as objects on the heap.
+ * <p>
+ * The file is mapped into memory in segments and every field is read straight from the mapping, so opening a store with millions of
+ * parts only maps the file and does not read it. Part objects are only created by the materialize method, when a screen needs one.
+ * </p>
+ * <p>
+ * Each record holds the id, a flag byte, price in cents, stock, min, max, machine id, name and company name. Records are written in
+ * increasing id order, which is how the Inventory hands out ids, so a part is found by a binary search over the id field of the records
+ * without keeping an index on the heap. A part added with a lower id than the last record, for example by an import with its own ids,
+ * is written at the end instead and found through a small map of those records, until load writes the store in id order again.
+ * Deleted parts are only flagged and keep their record. A name longer than MAX_TEXT_BYTES is cut in the record, and materialize then
+ * returns the part of the Inventory.
+ * </p>
+ * <p>
+ * The store is a mirror: Inventory.usePartStore loads every part into a store and registers it as a listener, so the store follows
+ * every change made to the parts after that, but the Inventory still keeps every part object. The store does not lower the memory
+ * used by the parts or the startup time, it lets the paged parts table read rows without walking the part objects.
+ * </p>
+ *
+ * @author José L Dávila Montalvo
+ */
+public class MappedPartStore implements InventoryListener, Closeable {
+
+    /**
+     * Longest name or company name kept in a record, in UTF-8 bytes.
+     */
+    public static final int MAX_TEXT_BYTES = 78;
+
+    /**
+     * File layout.
+     */
+    private static final int MAGIC = 0x494E5650;
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 192;
+    private static final int RECORDS_PER_SEGMENT = 1 << 16;
+    private static final long SEGMENT_SIZE = (long) RECORD_SIZE * RECORDS_PER_SEGMENT;
+
+    /**
+     * Header fields.
+     */
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_COUNT = 8;
+    private static final int HEADER_LIVE = 12;
+    private static final int HEADER_SORTED = 16;
+
+    /**
+     * Record fields, as offsets from the start of the record.
+     */
+    private static final int ID = 0;
+    private static final int FLAGS = 4;
+    private static final int PRICE = 8;
+    private static final int STOCK = 16;
+    private static final int MIN = 20;
+    private static final int MAX = 24;
+    private static final int MACHINE_ID = 28;
+    private static final int NAME = 32;
+    private static final int COMPANY = 112;
+
+    /**
+     * Flag bits.
+     */
+    private static final byte LIVE = 1;
+    private static final byte OUTSOURCED = 2;
+    private static final byte CUT = 4;
+
+    /**
+     * Private properties of the store.
+     */
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+    private volatile int count;
+
+    /**
+     * Number of records at the start of the store that are in id order, and the record numbers of the records after them by id.
+     */
+    private volatile int sorted;
+    private final Map<Integer, Integer> unsorted = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor maps the header and the segments in use. A store written by another version of the program is started over, its
+     * parts are written again by load.
+     *
+     * @param file Store file.
+     * @throws IOException if the file cannot be opened or is not a part store.
+     */
+    private MappedPartStore(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean created = channel.size() == 0;
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if(!created && header.getInt(HEADER_MAGIC) != MAGIC){
+            channel.close();
+            throw new IOException(file + " is not a part store");
+        }
+        if(created || header.getInt(HEADER_VERSION) != VERSION){
+            header.putInt(HEADER_MAGIC, MAGIC);
+            header.putInt(HEADER_VERSION, VERSION);
+            header.putInt(HEADER_COUNT, 0);
+            header.putInt(HEADER_LIVE, 0);
+            header.putInt(HEADER_SORTED, 0);
+        }
+        count = header.getInt(HEADER_COUNT);
+        sorted = header.getInt(HEADER_SORTED);
+        for(int i = 0; i * RECORDS_PER_SEGMENT < count; i++){
+            mapSegment(i);
+        }
+        for(int slot = sorted; slot < count; slot++){
+            unsorted.put(getId(slot), slot);
+        }
+    }
+
+    /**
+     * Method opens a store file, creating it if it does not exist.
+     *
+     * @param file Store file.
+     * @return the open store.
+     * @throws IOException if the file cannot be opened or is not a part store.
+     */
+    public static MappedPartStore open(Path file) throws IOException {
+        return new MappedPartStore(file);
+    }
+
+    /**
+     * @return number of records in the store, including deleted parts.
+     */
+    public int size(){
+        return count;
+    }
+
+    /**
+     * @return number of parts that are not deleted.
+     */
+    public int liveCount(){
+        return header.getInt(HEADER_LIVE);
+    }
+
+    /**
+     * @param slot Record number.
+     * @return the part id
+     */
+    public int getId(int slot){
+        return segment(slot).getInt(offset(slot) + ID);
+    }
+
+    /**
+     * @param slot Record number.
+     * @return true if the part has not been deleted.
+     */
+    public boolean isLive(int slot){
+        return (segment(slot).get(offset(slot) + FLAGS) & LIVE) != 0;
+    }
+
+    /**
+     * @param slot Record number.
+     * @return true if the part is Outsourced, false if it is Inhouse.
+     */
+    public boolean isOutsourced(int slot){
+        return (segment(slot).get(offset(slot) + FLAGS) & OUTSOURCED) != 0;
+    }
+
+    /**
+     * @param slot Record number.
+     * @return the price in cents
+     */
+    public long getPrice(int slot){
+        return segment(slot).getLong(offset(slot) + PRICE);
+    }
+
+    /**
+     * @param slot Record number.
+     * @return the stock
+     */
+    public int getStock(int slot){
+        return segment(slot).getInt(offset(slot) + STOCK);
+    }
+
+    /**
+     * @param slot Record number.
+     * @return the min
+     */
+    public int getMin(int slot){
+        return segment(slot).getInt(offset(slot) + MIN);
+    }
+
+    /**
+     * @param slot Record number.
+     * @return the max
+     */
+    public int getMax(int slot){
+        return segment(slot).getInt(offset(slot) + MAX);
+    }
+
+    /**
+     * @param slot Record number.
+     * @return the machineId, only meaningful for Inhouse parts.
+     */
+    public int getMachineId(int slot){
+        return segment(slot).getInt(offset(slot) + MACHINE_ID);
+    }
+
+    /**
+     * @param slot Record number.
+     * @return the name
+     */
+    public String getName(int slot){
+        return readText(segment(slot), offset(slot) + NAME);
+    }
+
+    /**
+     * @param slot Record number.
+     * @return the companyName, only meaningful for Outsourced parts.
+     */
+    public String getCompanyName(int slot){
+        return readText(segment(slot), offset(slot) + COMPANY);
+    }
+
+    /**
+     * Method finds the record of a part with a binary search over the id field.
+     *
+     * @param partId Id of the part being searched for.
+     * @return the record number or -1 if the part is not in the store or was deleted.
+     */
+    public int findSlot(int partId){
+        int slot = position(partId);
+        return slot >= 0 && isLive(slot) ? slot : -1;
+    }
+
+    /**
+     * Method finds the record of a part id, deleted or not, with a binary search over the id field of the records in id order, or in
+     * the map of the records added after them.
+     *
+     * @param partId Id of the part being searched for.
+     * @return the record number, or -1 if no record has the id.
+     */
+    int position(int partId){
+        int low = 0;
+        int high = sorted - 1;
+        while(low <= high){
+            int middle = (low + high) >>> 1;
+            int id = getId(middle);
+            if(id < partId){
+                low = middle + 1;
+            }else if(id > partId){
+                high = middle - 1;
+            }else{
+                return middle;
+            }
+        }
+        Integer slot = unsorted.get(partId);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Method scans the names of every part that is not deleted and returns the record numbers of the names that contain the text.
+     * Search text made of ASCII characters is compared byte by byte against the mapping without creating strings.
+     *
+     * @param text Partial or complete name being searched for.
+     * @return the record numbers of the matching parts, in record order.
+     */
+    public int[] searchNames(String text){
+        String normalized = NameIndex.normalize(text);
+        byte[] query = normalized.getBytes(StandardCharsets.UTF_8);
+        boolean ascii = query.length == normalized.length();
+
+        int[] matches = new int[16];
+        int found = 0;
+        int size = count;
+        for(int slot = 0; slot < size; slot++){
+            if(!isLive(slot)){
+                continue;
+            }
+            boolean match = ascii ? containsAscii(segment(slot), offset(slot) + NAME, query)
+                    : NameIndex.normalize(getName(slot)).contains(normalized);
+            if(match){
+                if(found == matches.length){
+                    matches = Arrays.copyOf(matches, found * 2);
+                }
+                matches[found++] = slot;
+            }
+        }
+        return Arrays.copyOf(matches, found);
+    }
+
+    /**
+     * Method creates a part object from a record. This is the only method that creates objects for the heap.
+     *
+     * @param slot Record number.
+     * @return a new InHouse or OutSourced part, or a copy of the part of the Inventory if the record holds a name that was cut.
+     */
+    public Part materialize(int slot){
+        if((segment(slot).get(offset(slot) + FLAGS) & CUT) != 0){
+            Part part = Inventory.lookupPart(getId(slot));
+            if(part != null){
+                return part.copy();
+            }
+        }
+        if(isOutsourced(slot)){
+            return new OutSourced(getId(slot), getName(slot), getPrice(slot), getStock(slot), getMin(slot), getMax(slot), getCompanyName(slot));
+        }
+        return new InHouse(getId(slot), getName(slot), getPrice(slot), getStock(slot), getMin(slot), getMax(slot), getMachineId(slot));
+    }
+
+    /**
+     * Method adds a part at the end of the store.
+     *
+     * @param part Part object to add. Its id must be higher than the id of every part already in the store.
+     * @return the record number of the part.
+     * @throws IOException if the file cannot grow.
+     * @throws IllegalArgumentException if the id is not higher than the last id, or the store is not in id order.
+     */
+    public synchronized int append(Part part) throws IOException {
+        if(sorted != count || count > 0 && part.getId() <= getId(count - 1)){
+            throw new IllegalArgumentException("Part ids must be appended in increasing order");
+        }
+        return add(part);
+    }
+
+    /**
+     * Method writes a part over the record with its id, or adds a record at the end if there is none. A deleted record with the id
+     * becomes live again. No other record is moved, so the time taken does not depend on the number of parts.
+     *
+     * @param part Part object to store.
+     * @return the record number of the part.
+     * @throws IOException if the file cannot grow.
+     */
+    public synchronized int put(Part part) throws IOException {
+        int slot = position(part.getId());
+        if(slot >= 0){
+            if(!isLive(slot)){
+                header.putInt(HEADER_LIVE, liveCount() + 1);
+            }
+            write(slot, part);
+            return slot;
+        }
+        return add(part);
+    }
+
+    /**
+     * Method adds a record at the end of the store. The record stays in the part of the store in id order if its id is higher than
+     * the last id, otherwise it is found through the map of the records added out of order.
+     *
+     * @param part Part object to add.
+     * @return the record number of the part.
+     * @throws IOException if the file cannot grow.
+     */
+    private int add(Part part) throws IOException {
+        int slot = count;
+        if(slot / RECORDS_PER_SEGMENT == segments.size()){
+            mapSegment(segments.size());
+        }
+        write(slot, part);
+        if(sorted == slot && (slot == 0 || part.getId() > getId(slot - 1))){
+            sorted = slot + 1;
+            header.putInt(HEADER_SORTED, sorted);
+        }else{
+            unsorted.put(part.getId(), slot);
+        }
+        count = slot + 1;
+        header.putInt(HEADER_COUNT, count);
+        header.putInt(HEADER_LIVE, liveCount() + 1);
+        return slot;
+    }
+
+    /**
+     * Method makes the store hold exactly the parts given, in id order. Records that already match the parts are kept and everything
+     * after the first difference is written again, so a store that was kept up to date is only read.
+     *
+     * @param parts Every part that the store should hold.
+     * @return the number of records that were written.
+     * @throws IOException if the file cannot grow.
+     */
+    public synchronized int load(Collection<Part> parts) throws IOException {
+        Part[] sorted = parts.toArray(new Part[0]);
+        Arrays.sort(sorted, Comparator.comparingInt(Part::getId));
+
+        byte[] expected = new byte[RECORD_SIZE];
+        byte[] stored = new byte[RECORD_SIZE];
+        int kept = 0;
+        while(kept < sorted.length && kept < count){
+            encode(sorted[kept], expected);
+            readRecord(kept, stored);
+            if(!Arrays.equals(expected, stored)){
+                break;
+            }
+            kept++;
+        }
+        for(int slot = kept; slot < sorted.length; slot++){
+            if(slot / RECORDS_PER_SEGMENT == segments.size()){
+                mapSegment(segments.size());
+            }
+            write(slot, sorted[slot]);
+        }
+        unsorted.clear();
+        count = sorted.length;
+        this.sorted = count;
+        header.putInt(HEADER_COUNT, count);
+        header.putInt(HEADER_LIVE, count);
+        header.putInt(HEADER_SORTED, count);
+        return sorted.length - kept;
+    }
+
+    @Override
+    public void partAdded(Part part){
+        try{
+            put(part);
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void partUpdated(Part part){
+        partAdded(part);
+    }
+
+    @Override
+    public void partDeleted(Part part){
+        delete(part.getId());
+    }
+
+    /**
+     * Method writes the current values of a part over its record.
+     *
+     * @param part Part object that was updated.
+     * @return true if the part was updated or false if it is not in the store.
+     */
+    public synchronized boolean update(Part part){
+        int slot = findSlot(part.getId());
+        if(slot < 0){
+            return false;
+        }
+        write(slot, part);
+        return true;
+    }
+
+    /**
+     * Method flags the record of a part as deleted.
+     *
+     * @param partId Id of the part to delete.
+     * @return true if the part was deleted or false if it is not in the store.
+     */
+    public synchronized boolean delete(int partId){
+        int slot = findSlot(partId);
+        if(slot < 0){
+            return false;
+        }
+        MappedByteBuffer segment = segment(slot);
+        int flags = offset(slot) + FLAGS;
+        segment.put(flags, (byte) (segment.get(flags) & ~LIVE));
+        header.putInt(HEADER_LIVE, liveCount() - 1);
+        return true;
+    }
+
+    /**
+     * Method writes every change made to the mapping to the disk.
+     */
+    public synchronized void force(){
+        header.force();
+        for(MappedByteBuffer segment: segments){
+            segment.force();
+        }
+    }
+
+    /**
+     * Method writes every change to the disk and closes the file. The mapping stays valid until it is garbage collected.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    /**
+     * Method writes all the fields of a part into a record.
+     *
+     * @param slot Record number.
+     * @param part Part object to write.
+     */
+    private void write(int slot, Part part){
+        byte[] record = new byte[RECORD_SIZE];
+        encode(part, record);
+        writeRecord(slot, record);
+    }
+
+    /**
+     * Method lays out the fields of a part, all from the same change, as a live record.
+     *
+     * @param part Part object to encode.
+     * @param record Array of RECORD_SIZE bytes that receives the record.
+     */
+    private static void encode(Part part, byte[] record){
+        Part.Values values = part.values();
+        boolean outsourced = part instanceof OutSourced;
+        byte[] name = textBytes(values.name);
+        byte[] company = outsourced ? textBytes(values.companyName) : new byte[0];
+        boolean cut = name.length > MAX_TEXT_BYTES || company.length > MAX_TEXT_BYTES;
+
+        Arrays.fill(record, (byte) 0);
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        buffer.putInt(ID, part.getId());
+        buffer.put(FLAGS, (byte) (LIVE | (outsourced ? OUTSOURCED : 0) | (cut ? CUT : 0)));
+        buffer.putLong(PRICE, values.price);
+        buffer.putInt(STOCK, values.stock);
+        buffer.putInt(MIN, values.min);
+        buffer.putInt(MAX, values.max);
+        buffer.putInt(MACHINE_ID, outsourced ? 0 : values.machineId);
+        writeText(buffer, NAME, name);
+        writeText(buffer, COMPANY, company);
+    }
+
+    /**
+     * @param text Name or company name.
+     * @return the UTF-8 bytes of the text.
+     */
+    private static byte[] textBytes(String text){
+        return text == null ? new byte[0] : text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Method writes a text field as a two byte length followed by the UTF-8 bytes. A text longer than MAX_TEXT_BYTES is cut after
+     * the last whole character that fits.
+     */
+    private static void writeText(ByteBuffer record, int offset, byte[] bytes){
+        int length = bytes.length;
+        if(length > MAX_TEXT_BYTES){
+            length = MAX_TEXT_BYTES;
+            while(length > 0 && (bytes[length] & 0xC0) == 0x80){
+                length--;
+            }
+        }
+        record.putShort(offset, (short) length);
+        record.position(offset + 2);
+        record.put(bytes, 0, length);
+    }
+
+    /**
+     * Method copies a whole record out of the mapping.
+     */
+    private void readRecord(int slot, byte[] record){
+        ByteBuffer view = segment(slot).duplicate();
+        view.position(offset(slot));
+        view.get(record);
+    }
+
+    /**
+     * Method copies a whole record into the mapping.
+     */
+    private void writeRecord(int slot, byte[] record){
+        ByteBuffer view = segment(slot).duplicate();
+        view.position(offset(slot));
+        view.put(record);
+    }
+
+    /**
+     * Method checks if a text field contains lowercase ASCII bytes, ignoring the case of the field.
+     */
+    private static boolean containsAscii(MappedByteBuffer segment, int offset, byte[] query){
+        int length = segment.getShort(offset);
+        int start = offset + 2;
+        for(int i = 0; i + query.length <= length; i++){
+            int j = 0;
+            while(j < query.length){
+                byte b = segment.get(start + i + j);
+                if(b >= 'A' && b <= 'Z'){
+                    b += 'a' - 'A';
+                }
+                if(b != query[j]){
+                    break;
+                }
+                j++;
+            }
+            if(j == query.length){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method reads a text field written by writeText.
+     */
+    private static String readText(MappedByteBuffer segment, int offset){
+        int length = segment.getShort(offset);
+        byte[] bytes = new byte[length];
+        ByteBuffer view = segment.duplicate();
+        view.position(offset + 2);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param slot Record number.
+     * @return the mapped segment that holds the record.
+     */
+    private MappedByteBuffer segment(int slot){
+        return segments.get(slot / RECORDS_PER_SEGMENT);
+    }
+
+    /**
+     * @param slot Record number.
+     * @return the position of the record inside its segment.
+     */
+    private static int offset(int slot){
+        return (slot % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+    }
+
+    /**
+     * Method maps one more segment of the file, which grows the file if needed.
+     *
+     * @param index Segment number.
+     * @throws IOException if the segment cannot be mapped.
+     */
+    private void mapSegment(int index) throws IOException {
+        segments.add(channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + index * SEGMENT_SIZE, SEGMENT_SIZE));
+    }
+}
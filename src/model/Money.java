@@ -0,0 +1,177 @@
+package model;
+
+/**
+ * Money class that works with amounts of money kept as a long number of cents, the minor unit of the currency.
+ * <p>
+ * Prices are stored as whole cents everywhere in the model, so adding up prices is exact and runs on primitive longs. Nothing here
+ * creates objects except the error messages and the String returned by format: amounts are parsed and appended to a StringBuilder
+ * digit by digit. Sums and products that do not fit in a long throw an ArithmeticException instead of wrapping around.
+ * </p>
+ *
+ * @author José L Dávila Montalvo
+ */
+public final class Money {
+
+    /**
+     * Number of cents in one unit of the currency, and the number of decimals an amount is written with.
+     */
+    public static final long CENTS = 100;
+    public static final int DECIMALS = 2;
+
+    /**
+     * Value returned by tryParse for text that is not an amount. It is the smallest long, so it is never a real amount.
+     */
+    static final long INVALID = Long.MIN_VALUE;
+
+    private Money(){
+    }
+
+    /**
+     * Method reads an amount written as digits with an optional sign and an optional decimal point, like 12, 12.5 or 12.50.
+     * Decimals after the second are rounded half up.
+     *
+     * @param text Amount to read.
+     * @return the amount in cents.
+     * @throws NumberFormatException if the text is not an amount or the amount does not fit in a long.
+     */
+    public static long parse(CharSequence text){
+        long cents = tryParse(text, 0, text.length());
+        if(cents == INVALID){
+            throw new NumberFormatException("Not an amount: \"" + text + "\"");
+        }
+        return cents;
+    }
+
+    /**
+     * Method reads an amount from part of a text the same way as parse, but answers INVALID instead of throwing, so bad rows of a
+     * large import cost no more than good ones.
+     *
+     * @param text Text holding the amount.
+     * @param start Index of the first character of the amount.
+     * @param end Index after the last character of the amount.
+     * @return the amount in cents, or INVALID.
+     */
+    static long tryParse(CharSequence text, int start, int end){
+        int i = start;
+        boolean negative = false;
+        if(i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')){
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        // digits past the 17th would overflow, so the units are checked against the largest value before each digit is added
+        long units = 0;
+        int digits = 0;
+        for(; i < end && isDigit(text.charAt(i)); i++, digits++){
+            if(units > (Long.MAX_VALUE / CENTS) / 10){
+                return INVALID;
+            }
+            units = units * 10 + (text.charAt(i) - '0');
+        }
+        long fraction = 0;
+        int decimals = 0;
+        boolean roundUp = false;
+        if(i < end && text.charAt(i) == '.'){
+            for(i++; i < end && isDigit(text.charAt(i)); i++, decimals++){
+                if(decimals < DECIMALS){
+                    fraction = fraction * 10 + (text.charAt(i) - '0');
+                }else if(decimals == DECIMALS){
+                    roundUp = text.charAt(i) >= '5';
+                }
+            }
+        }
+        if(i != end || digits + decimals == 0){
+            return INVALID;
+        }
+        for(int d = decimals; d < DECIMALS; d++){
+            fraction *= 10;
+        }
+        fraction += roundUp ? 1 : 0;
+        if(units > (Long.MAX_VALUE - fraction) / CENTS){
+            return INVALID;
+        }
+        long cents = units * CENTS + fraction;
+        return negative ? -cents : cents;
+    }
+
+    /**
+     * Method converts an amount given as a double, like a price written in code, to cents. An amount with at most two decimals is
+     * converted exactly.
+     *
+     * @param amount Amount in units of the currency.
+     * @return the amount in cents, rounded to the nearest cent.
+     * @throws ArithmeticException if the amount does not fit in a long.
+     */
+    public static long of(double amount){
+        double cents = Math.rint(amount * CENTS);
+        if(Double.isNaN(cents) || Math.abs(cents) >= 0x1p63){
+            throw new ArithmeticException("Amount is out of range: " + amount);
+        }
+        return (long) cents;
+    }
+
+    /**
+     * @param cents Amount in cents.
+     * @return the closest double to the amount in units of the currency, for screens and charts.
+     */
+    public static double toDouble(long cents){
+        return cents / (double) CENTS;
+    }
+
+    /**
+     * Method multiplies an amount by a quantity.
+     *
+     * @param cents Amount in cents.
+     * @param quantity Number of times the amount is taken.
+     * @return the total in cents.
+     * @throws ArithmeticException if the total does not fit in a long.
+     */
+    public static long times(long cents, long quantity){
+        return Math.multiplyExact(cents, quantity);
+    }
+
+    /**
+     * Method adds two amounts.
+     *
+     * @param a Amount in cents.
+     * @param b Amount in cents.
+     * @return the sum in cents.
+     * @throws ArithmeticException if the sum does not fit in a long.
+     */
+    public static long add(long a, long b){
+        return Math.addExact(a, b);
+    }
+
+    /**
+     * Method writes an amount with two decimals, like 12.50, without creating any objects.
+     *
+     * @param text Builder the amount is appended to.
+     * @param cents Amount in cents.
+     * @return the builder.
+     */
+    public static StringBuilder append(StringBuilder text, long cents){
+        long units = cents / CENTS;
+        long fraction = cents % CENTS;
+        if(cents < 0){
+            text.append('-');
+            units = -units;
+            fraction = -fraction;
+        }
+        text.append(units).append('.');
+        if(fraction < 10){
+            text.append('0');
+        }
+        return text.append(fraction);
+    }
+
+    /**
+     * @param cents Amount in cents.
+     * @return the amount written with two decimals, like 12.50.
+     */
+    public static String format(long cents){
+        return append(new StringBuilder(24), cents).toString();
+    }
+
+    private static boolean isDigit(char c){
+        return c >= '0' && c <= '9';
+    }
+}
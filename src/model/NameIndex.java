@@ -0,0 +1,275 @@
+package model;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * NameIndex class that keeps a trigram index over the names of part or product objects.
+ * Every name is lowercased and broken into all of its pieces of three characters. Each piece points to a sorted array of the ids of
+ * the objects whose names contain it, so a "contains" search of three or more characters only has to look at the objects that share
+ * every piece of the search text. Searches of one or two characters match most names anyway and scan the names instead.
+ * <p>
+ * The Inventory class keeps one index for parts and one for products and updates them when objects are added, updated or deleted.
+ * Changes hold the lock of the index. Searches take no lock: an id list is never changed where a search can see it, it is either
+ * extended past the end a search reads up to or replaced by a new array.
+ * </p>
+ *
+ * @author José L Dávila Montalvo
+ */
+public class NameIndex {
+
+    /**
+     * Length of the pieces of a name that are stored in the index.
+     */
+    private static final int GRAM_LENGTH = 3;
+
+    /**
+     * Private properties of the index.
+     *
+     * postings maps a piece of a name, packed into a long, to the ids of the objects that contain it, names keeps the normalized name
+     * of every id.
+     */
+    private final Map<Long, Postings> postings = new ConcurrentHashMap<>();
+    private final Map<Integer, String> names = new ConcurrentHashMap<>();
+
+    /**
+     * Method normalizes a name so that searches are not case sensitive.
+     *
+     * @param name Name to normalize.
+     * @return the lowercase name or an empty string if the name is null.
+     */
+    public static String normalize(String name){
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Method adds an object name to the index.
+     *
+     * @param id    Id of the part or product.
+     * @param name  Name of the part or product.
+     */
+    public synchronized void add(int id, String name){
+        String normalized = normalize(name);
+        names.put(id, normalized);
+        for(long gram: grams(normalized)){
+            Postings ids = postings.get(gram);
+            postings.put(gram, ids == null ? Postings.of(id) : ids.with(id));
+        }
+    }
+
+    /**
+     * Method removes an object name from the index.
+     *
+     * @param id Id of the part or product.
+     */
+    public synchronized void remove(int id){
+        String normalized = names.remove(id);
+        if(normalized == null){
+            return;
+        }
+        for(long gram: grams(normalized)){
+            Postings ids = postings.get(gram);
+            if(ids != null){
+                Postings rest = ids.without(id);
+                if(rest == null){
+                    postings.remove(gram);
+                }else if(rest != ids){
+                    postings.put(gram, rest);
+                }
+            }
+        }
+    }
+
+    /**
+     * Method replaces the name stored for an object. Nothing is done if the name did not change.
+     *
+     * @param id    Id of the part or product.
+     * @param name  New name of the part or product.
+     */
+    public synchronized void update(int id, String name){
+        if(normalize(name).equals(names.get(id))){
+            return;
+        }
+        remove(id);
+        add(id, name);
+    }
+
+    /**
+     * Method returns the ids of all the objects whose names contain the text entered.
+     * Searches of three or more characters intersect the id lists of the pieces of the search, smallest first, and only check the
+     * names of the ids left. Shorter searches check every name.
+     *
+     * @param text Partial or complete name being searched for.
+     * @return a new set with the ids of the objects that match.
+     */
+    public Set<Integer> search(String text){
+        String normalized = normalize(text);
+        if(normalized.isEmpty()){
+            return new HashSet<>(names.keySet());
+        }
+        if(normalized.length() < GRAM_LENGTH){
+            return scan(normalized);
+        }
+
+        long[] grams = grams(normalized);
+        Postings[] lists = new Postings[grams.length];
+        for(int i = 0; i < grams.length; i++){
+            lists[i] = postings.get(grams[i]);
+            if(lists[i] == null){
+                return new HashSet<>();
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+        int[] candidates = Arrays.copyOf(lists[0].ids, lists[0].size);
+        int count = candidates.length;
+        for(int i = 1; i < lists.length && count > 0; i++){
+            count = lists[i].retain(candidates, count);
+        }
+
+        Set<Integer> matches = new HashSet<>();
+        for(int i = 0; i < count; i++){
+            // a search that was cancelled by a newer keystroke stops early
+            if((i & 4095) == 4095 && Thread.currentThread().isInterrupted()){
+                return new HashSet<>();
+            }
+            String name = names.get(candidates[i]);
+            if(name != null && name.contains(normalized)){
+                matches.add(candidates[i]);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Method checks every name for a search of one or two characters.
+     *
+     * @param normalized Lowercase search text.
+     * @return a new set with the ids of the objects that match.
+     */
+    private Set<Integer> scan(String normalized){
+        Set<Integer> matches = new HashSet<>();
+        int checked = 0;
+        for(Map.Entry<Integer, String> entry: names.entrySet()){
+            if(++checked % 4096 == 0 && Thread.currentThread().isInterrupted()){
+                return new HashSet<>();
+            }
+            if(entry.getValue().contains(normalized)){
+                matches.add(entry.getKey());
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Method breaks a normalized name into all of its distinct pieces of three characters, each packed into a long.
+     *
+     * @param normalized Lowercase name.
+     * @return the distinct pieces of the name in increasing order.
+     */
+    private static long[] grams(String normalized){
+        int count = Math.max(0, normalized.length() - GRAM_LENGTH + 1);
+        long[] grams = new long[count];
+        for(int i = 0; i < count; i++){
+            grams[i] = (long) normalized.charAt(i) << 32 | (long) normalized.charAt(i + 1) << 16 | normalized.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for(int i = 0; i < count; i++){
+            if(distinct == 0 || grams[i] != grams[distinct - 1]){
+                grams[distinct++] = grams[i];
+            }
+        }
+        return distinct == count ? grams : Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Sorted ids of the objects that contain one piece. A search reads the first size ids of the array. Ids added after the last one
+     * are written past size into the same array and a new Postings with a larger size is published, any other change copies the array,
+     * so the ids a search can see never change.
+     */
+    private static final class Postings {
+        private final int[] ids;
+        private final int size;
+
+        private Postings(int[] ids, int size){
+            this.ids = ids;
+            this.size = size;
+        }
+
+        static Postings of(int id){
+            return new Postings(new int[]{id, 0}, 1);
+        }
+
+        /**
+         * @param id Id to add.
+         * @return the postings with the id.
+         */
+        Postings with(int id){
+            if(ids[size - 1] < id){
+                if(size < ids.length){
+                    ids[size] = id;
+                    return new Postings(ids, size + 1);
+                }
+                int[] grown = Arrays.copyOf(ids, size + (size >> 1) + 1);
+                grown[size] = id;
+                return new Postings(grown, size + 1);
+            }
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if(position >= 0){
+                return this;
+            }
+            position = -position - 1;
+            int[] copy = new int[size + (size >> 1) + 1];
+            System.arraycopy(ids, 0, copy, 0, position);
+            copy[position] = id;
+            System.arraycopy(ids, position, copy, position + 1, size - position);
+            return new Postings(copy, size + 1);
+        }
+
+        /**
+         * @param id Id to remove.
+         * @return the postings without the id, this if the id was not there, or null if no id is left.
+         */
+        Postings without(int id){
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if(position < 0){
+                return this;
+            }
+            if(size == 1){
+                return null;
+            }
+            int[] copy = new int[size - 1];
+            System.arraycopy(ids, 0, copy, 0, position);
+            System.arraycopy(ids, position + 1, copy, position, size - position - 1);
+            return new Postings(copy, size - 1);
+        }
+
+        /**
+         * Method keeps only the candidates that are also in these postings. Both lists are sorted, the smaller one is walked and the
+         * larger one is searched with a binary search that starts after the last id found.
+         *
+         * @param candidates Sorted candidate ids, changed in place.
+         * @param count Number of candidates.
+         * @return the number of candidates left.
+         */
+        int retain(int[] candidates, int count){
+            int kept = 0;
+            int from = 0;
+            for(int i = 0; i < count && from < size; i++){
+                int position = Arrays.binarySearch(ids, from, size, candidates[i]);
+                if(position >= 0){
+                    candidates[kept++] = candidates[i];
+                    from = position + 1;
+                }else{
+                    from = -position - 1;
+                }
+            }
+            return kept;
+        }
+    }
+}
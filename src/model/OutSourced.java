@@ -8,39 +8,42 @@ package model;
  */
 public class OutSourced extends Part{
 
-    /**
-     * Name of the company where the part is sourced from.
-     */
-    private String companyName;
-
     /**
      *Constructor for Outsourced Part objects. Inherits attributes from Part parent class and adds company name attribute.
      *
      *@param id             Id number of the Outsourced part object.
      *@param name           Name of the Outsourced part object.
-     *@param price          Price of the Outsourced part object.
+     *@param price          Price of the Outsourced part object in cents.
      *@param stock          Quantity of the Outsourced part object in inventory.
      *@param min            Minimum quantity of the Outsourced part object in inventory.
      *@param max            Maximum quantity of the Outsourced part object in inventory.
      *@param companyName    Name of the company where the part is sourced from.
      */
-    public OutSourced(int id, String name, double price, int stock, int min, int max, String companyName) {
-        super(id, name, price, stock, min, max);
+    public OutSourced(int id, String name, long price, int stock, int min, int max, String companyName) {
+        super(id, new Values(name, price, stock, min, max, 0, companyName));
+    }
+
+    private OutSourced(int id, Values values) {
+        super(id, values);
+    }
 
-        this.companyName = companyName;
+    @Override
+    OutSourced copy(Values values) {
+        return new OutSourced(getId(), values);
     }
 
     /**
      * @param companyName the companyName to set.
      */
-    public void setCompanyName(String companyName) {
-        this.companyName = companyName;
+    void setCompanyName(String companyName) {
+        Values v = values();
+        set(new Values(v.name, v.price, v.stock, v.min, v.max, 0, companyName));
     }
 
     /**
      * @return the companyName
      */
     public String getCompanyName() {
-        return companyName;
+        return values().companyName;
     }
 }
@@ -0,0 +1,419 @@
+package model;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableListBase;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * PagedPartList class is a read only observable list of the parts kept in a MappedPartStore, for tableviews over very large catalogs.
+ * <p>
+ * Rows are materialized a page at a time, only when the tableview asks for them. The most recently used pages are kept in a small
+ * cache, and the page after or before the one being read is loaded with it in the direction the user is scrolling. Memory use depends
+ * on the size of the cache and not on the number of parts in the store.
+ * </p>
+ * <p>
+ * Deleted parts are skipped without a list of every live record: the list only keeps how many shown parts come before each block of
+ * records and one bit per record, and finds a row with a binary search over those counts. The list can be narrowed to the parts
+ * found by a search. The list does not watch the store, the changes of the Inventory parts list are given to partsChanged, which
+ * adds, sets or removes only the rows of the parts that changed.
+ * Tableviews cannot sort the list, the parts are shown in the order of the records of the store, which is id order except for
+ * parts added with a lower id than an earlier part.
+ * The list is only used on the JavaFX application thread.
+ * </p>
+ *
+ * @author José L Dávila Montalvo
+ */
+public class PagedPartList extends ObservableListBase<Part> {
+
+    /**
+     * Number of rows materialized together, also the number of records in a block of live counts.
+     */
+    public static final int PAGE_SIZE = 256;
+
+    /**
+     * Default number of pages kept in the cache.
+     */
+    public static final int DEFAULT_CACHED_PAGES = 64;
+
+    /**
+     * Private properties of the list.
+     */
+    private final MappedPartStore store;
+    private final Map<Integer, Part[]> pages;
+    private Rows rows;
+    private Set<Integer> shownIds;
+    private int lastPage = -1;
+
+    /**
+     * Constructor for a list of every part in a store with the default cache size.
+     *
+     * @param store Store that holds the parts.
+     */
+    public PagedPartList(MappedPartStore store){
+        this(store, DEFAULT_CACHED_PAGES);
+    }
+
+    /**
+     * Constructor for a list of every part in a store.
+     *
+     * @param store Store that holds the parts.
+     * @param cachedPages Number of pages kept in the cache.
+     */
+    public PagedPartList(MappedPartStore store, int cachedPages){
+        if(store == null){
+            throw new NullPointerException("Store cannot be null");
+        }
+        if(cachedPages < 2){
+            throw new IllegalArgumentException("At least two pages must be cached");
+        }
+        this.store = store;
+        this.pages = new LinkedHashMap<Integer, Part[]>(cachedPages * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Part[]> eldest){
+                return size() > cachedPages;
+            }
+        };
+        this.rows = Rows.of(store, null);
+    }
+
+    @Override
+    public Part get(int index){
+        if(index < 0 || index >= rows.size){
+            throw new IndexOutOfBoundsException("Index " + index + " is outside the list of " + rows.size + " parts");
+        }
+        int page = index / PAGE_SIZE;
+        Part[] parts = page(page);
+
+        // prefetch the next page in the direction the user is scrolling
+        if(page != lastPage){
+            int next = page < lastPage ? page - 1 : page + 1;
+            if(next >= 0 && next * PAGE_SIZE < rows.size){
+                page(next);
+            }
+            lastPage = page;
+        }
+        return parts[index - page * PAGE_SIZE];
+    }
+
+    @Override
+    public int size(){
+        return rows.size;
+    }
+
+    /**
+     * Method shows only the parts with the ids given, for example the ids found by Inventory.matchPartIds, or every part.
+     *
+     * @param ids Ids of the parts to show, or null to show every part.
+     */
+    public void show(Set<Integer> ids){
+        shownIds = ids;
+        refresh();
+    }
+
+    /**
+     * Method reads which parts are shown from the store again and tells the tableview that every row changed. Used when the search
+     * changes, changes to parts are applied by partsChanged one row at a time.
+     * The rows replaced are given as they were: the rows of the pages in the cache, which are the rows the tableview has read, are
+     * kept from before the refresh, and the other rows are materialized through the old rows. Records never move in the store, so
+     * the old rows still point at the records they showed.
+     */
+    public void refresh(){
+        Rows old = rows;
+        Map<Integer, Part[]> oldPages = new HashMap<>(pages);
+        rows = Rows.of(store, shownIds);
+        pages.clear();
+        lastPage = -1;
+
+        beginChange();
+        nextReplace(0, rows.size, new AbstractList<Part>() {
+            @Override
+            public Part get(int index){
+                Part[] page = oldPages.get(index / PAGE_SIZE);
+                return page != null ? page[index % PAGE_SIZE] : store.materialize(old.slotOf(index));
+            }
+
+            @Override
+            public int size(){
+                return old.size;
+            }
+        });
+        endChange();
+    }
+
+    /**
+     * Method applies a change of the Inventory parts list, for example as a listener of Inventory.getAllParts. Only the rows of the
+     * parts in the change are added, set or removed, with one change event for the whole change, and the rest of the list is not
+     * read again. A part the search did not find stays hidden until the search runs again.
+     *
+     * @param change Change of the parts list.
+     */
+    public void partsChanged(ListChangeListener.Change<? extends Part> change){
+        Map<Integer, Part> removed = new HashMap<>();
+        Set<Integer> ids = new LinkedHashSet<>();
+        while(change.next()){
+            for(Part part: change.getRemoved()){
+                removed.put(part.getId(), part);
+                ids.add(part.getId());
+            }
+            for(Part part: change.getAddedSubList()){
+                ids.add(part.getId());
+            }
+        }
+        if(ids.isEmpty()){
+            return;
+        }
+        beginChange();
+        try{
+            for(int id: ids){
+                partChanged(id, removed.get(id));
+            }
+        }finally{
+            endChange();
+        }
+    }
+
+    /**
+     * @return the number of pages in the cache.
+     */
+    public int getCachedPageCount(){
+        return pages.size();
+    }
+
+    /**
+     * Method brings the row of one part up to date with its record.
+     *
+     * @param id Id of the part.
+     * @param removedPart Part removed from the Inventory parts list, or null.
+     */
+    private void partChanged(int id, Part removedPart){
+        int slot = store.position(id);
+        if(slot < 0){
+            return;
+        }
+        boolean shown = store.isLive(slot) && (shownIds == null || shownIds.contains(id));
+        boolean wasShown = rows.isShown(slot);
+        if(wasShown){
+            int row = rows.rowOf(slot);
+            Part[] page = pages.get(row / PAGE_SIZE);
+            Part old = page != null ? page[row % PAGE_SIZE] : removedPart != null ? removedPart.copy() : store.materialize(slot);
+            if(shown){
+                Part current = store.materialize(slot);
+                if(page != null){
+                    page[row % PAGE_SIZE] = current;
+                }
+                nextSet(row, old);
+            }else{
+                rows.hide(slot);
+                dropPagesFrom(row);
+                nextRemove(row, old);
+            }
+        }else if(shown){
+            rows.show(slot);
+            int row = rows.rowOf(slot);
+            dropPagesFrom(row);
+            nextAdd(row, row + 1);
+        }
+    }
+
+    /**
+     * Method removes the cached pages of a row and of the rows after it, which move when a row is added or removed.
+     *
+     * @param row First row that moved.
+     */
+    private void dropPagesFrom(int row){
+        int first = row / PAGE_SIZE;
+        pages.keySet().removeIf(page -> page >= first);
+        lastPage = -1;
+    }
+
+    /**
+     * Method returns a page from the cache or materializes it.
+     *
+     * @param page Page number.
+     * @return the parts of the page.
+     */
+    private Part[] page(int page){
+        Part[] parts = pages.get(page);
+        if(parts == null){
+            int first = page * PAGE_SIZE;
+            parts = new Part[Math.min(PAGE_SIZE, rows.size - first)];
+            rows.materialize(store, first, parts);
+            pages.put(page, parts);
+        }
+        return parts;
+    }
+
+    /**
+     * Records shown by the list, as one bit per record and the number of shown records before each block of PAGE_SIZE records.
+     * A row is found with a binary search over those counts, and adding or removing a row only changes one bit and the counts of the
+     * blocks after it.
+     */
+    private static class Rows {
+        private int size;
+        private int records;
+        private int[] shownBefore;
+        private long[] shown;
+
+        private Rows(int records){
+            this.records = records;
+            this.shown = new long[(records + 63) / 64];
+            this.shownBefore = new int[blocks(records) + 1];
+        }
+
+        /**
+         * Method finds the records shown by the list.
+         *
+         * @param store Store that holds the parts.
+         * @param ids Ids of the parts found by a search, or null for every live record.
+         * @return the records shown by the list.
+         */
+        static Rows of(MappedPartStore store, Set<Integer> ids){
+            Rows rows = new Rows(store.size());
+            if(ids == null){
+                for(int slot = 0; slot < rows.records; slot++){
+                    if(store.isLive(slot)){
+                        rows.shown[slot >>> 6] |= 1L << slot;
+                    }
+                }
+            }else{
+                for(int id: ids){
+                    int slot = store.findSlot(id);
+                    if(slot >= 0){
+                        rows.grow(slot);
+                        rows.shown[slot >>> 6] |= 1L << slot;
+                    }
+                }
+            }
+            int count = 0;
+            int blocks = rows.shownBefore.length - 1;
+            for(int block = 0; block < blocks; block++){
+                rows.shownBefore[block] = count;
+                int end = Math.min(rows.shown.length, (block + 1) * PAGE_SIZE / 64);
+                for(int word = block * PAGE_SIZE / 64; word < end; word++){
+                    count += Long.bitCount(rows.shown[word]);
+                }
+            }
+            rows.shownBefore[blocks] = count;
+            rows.size = count;
+            return rows;
+        }
+
+        private static int blocks(int records){
+            return (records + PAGE_SIZE - 1) / PAGE_SIZE;
+        }
+
+        boolean isShown(int slot){
+            return slot < records && (shown[slot >>> 6] & 1L << slot) != 0;
+        }
+
+        /**
+         * Method makes room for a record added to the store after the rows were read.
+         *
+         * @param slot Record number.
+         */
+        private void grow(int slot){
+            if(slot < records){
+                return;
+            }
+            records = slot + 1;
+            int words = (records + 63) / 64;
+            if(words > shown.length){
+                shown = Arrays.copyOf(shown, Math.max(words, shown.length * 2));
+            }
+            int blocks = blocks(records);
+            int oldBlocks = shownBefore.length - 1;
+            if(blocks > oldBlocks){
+                shownBefore = Arrays.copyOf(shownBefore, blocks + 1);
+                Arrays.fill(shownBefore, oldBlocks + 1, blocks + 1, size);
+            }
+        }
+
+        /**
+         * @param slot Record number to show.
+         */
+        void show(int slot){
+            grow(slot);
+            shown[slot >>> 6] |= 1L << slot;
+            for(int block = slot / PAGE_SIZE + 1; block < shownBefore.length; block++){
+                shownBefore[block]++;
+            }
+            size++;
+        }
+
+        /**
+         * @param slot Record number to hide.
+         */
+        void hide(int slot){
+            shown[slot >>> 6] &= ~(1L << slot);
+            for(int block = slot / PAGE_SIZE + 1; block < shownBefore.length; block++){
+                shownBefore[block]--;
+            }
+            size--;
+        }
+
+        /**
+         * @param slot Record number of a shown record.
+         * @return the row of the record.
+         */
+        int rowOf(int slot){
+            int block = slot / PAGE_SIZE;
+            int row = shownBefore[block];
+            int word = slot >>> 6;
+            for(int w = block * PAGE_SIZE / 64; w < word; w++){
+                row += Long.bitCount(shown[w]);
+            }
+            return row + Long.bitCount(shown[word] & ((1L << slot) - 1));
+        }
+
+        /**
+         * Method finds the record of a row.
+         *
+         * @param row Row number.
+         * @return the record number.
+         */
+        int slotOf(int row){
+            // last block with fewer shown records before it than the row
+            int low = 0;
+            int high = shownBefore.length - 2;
+            while(low < high){
+                int mid = (low + high + 1) >>> 1;
+                if(shownBefore[mid] <= row){
+                    low = mid;
+                }else{
+                    high = mid - 1;
+                }
+            }
+            int skip = row - shownBefore[low];
+            int slot = low * PAGE_SIZE;
+            while(true){
+                if(isShown(slot) && skip-- == 0){
+                    return slot;
+                }
+                slot++;
+            }
+        }
+
+        /**
+         * Method materializes consecutive rows.
+         *
+         * @param store Store that holds the parts.
+         * @param first First row.
+         * @param parts Array filled with the parts of the rows.
+         */
+        void materialize(MappedPartStore store, int first, Part[] parts){
+            int slot = slotOf(first);
+            for(int i = 0; i < parts.length; slot++){
+                if(isShown(slot)){
+                    parts[i++] = store.materialize(slot);
+                }
+            }
+        }
+    }
+}
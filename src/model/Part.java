@@ -8,6 +8,15 @@ package model;
  *This is the super class that contains the constructor, getters, and setters for Part objects.
  * A Part object cannot be created from this class and can only be created by the classes that inherit from Part. The classes that inherit
  * from Part are Inhouse and Outsourced.
+ * <p>
+ * The fields of a part are kept together in one Values object that is never changed. A change publishes a new Values object in a
+ * single write, so a reader that uses values() or copy() sees every field of the same change, never half of an update. While the part
+ * is attached to PartColumns its fields are only kept in the columns and read from there.
+ * </p>
+ * <p>
+ * The setters can only be used inside the model package. Other code changes a part through the Inventory class, so the log, the
+ * ledger, the indexes and the listeners see every change.
+ * </p>
  *
  * @author José L Dávila Montalvo
  */
@@ -17,31 +26,90 @@ public abstract class Part {
      *Private properties of a Part object.
      */
     private int id;
-    private String name;
-    private double price;
-    private int stock;
-    private int min;
-    private int max;
+    private volatile Values values;
+
+    /**
+     * Columns that hold the fields of the part while it is attached to them, and the slot of the part in the columns. Values is null
+     * while the part is attached. All three are only changed while holding the write lock of the columns.
+     */
+    volatile PartColumns columns;
+    int slot;
 
     /**
      *This is the constructor for Part objects. Each part has a id, name, price, stock, min, and max.
      *
      * @param id    Id number of the part object.
      * @param name  Name of the part object.
-     * @param price Price of the part object.
+     * @param price Price of the part object in cents.
      * @param stock Quantity of the part object in inventory.
      * @param min   Minimum quantity of the part object in inventory.
      * @param max   Maximum quantity of the part object in inventory.
      */
-    public Part(int id, String name, double price, int stock, int min, int max) {
+    public Part(int id, String name, long price, int stock, int min, int max) {
+        this(id, new Values(name, price, stock, min, max, 0, null));
+    }
+
+    /**
+     * Constructor used by the classes that inherit from Part, with every field of the part.
+     *
+     * @param id     Id number of the part object.
+     * @param values Fields of the part object.
+     */
+    Part(int id, Values values) {
         this.id = id;
-        this.name = name;
-        this.price = price;
-        this.stock = stock;
-        this.min = min;
-        this.max = max;
+        this.values = values;
+    }
+
+    /**
+     * @return the fields of the part, all from the same change.
+     */
+    Values values() {
+        while(true){
+            Values values = this.values;
+            if(values != null){
+                return values;
+            }
+            PartColumns columns = this.columns;
+            if(columns != null){
+                values = columns.read(this);
+                if(values != null){
+                    return values;
+                }
+            }
+            // the part is being detached and its fields are published in the part next
+            Thread.onSpinWait();
+        }
     }
 
+    /**
+     * Method publishes new fields for the part in one write, in the columns if the part is attached to them.
+     * Changes to a part in the inventory are made while holding the lock of the part.
+     *
+     * @param values New fields of the part.
+     */
+    void set(Values values) {
+        PartColumns columns = this.columns;
+        if(columns == null || !columns.write(this, values)){
+            this.values = values;
+        }
+    }
+
+    /**
+     * Method makes a new part with the same id and the fields of one change, for readers that use several fields of a part that
+     * may be changed by other threads.
+     *
+     * @return a part that is not in the inventory and has the current fields of this part.
+     */
+    public Part copy() {
+        return copy(values());
+    }
+
+    /**
+     * @param values Fields of the new part.
+     * @return a part of the same class with the same id and the fields given.
+     */
+    abstract Part copy(Values values);
+
     /**
      * @return the id
      */
@@ -52,7 +120,7 @@ public abstract class Part {
     /**
      * @param id the id to set
      */
-    public void setId(int id) {
+    void setId(int id) {
         this.id = id;
     }
 
@@ -60,70 +128,133 @@ public abstract class Part {
      * @return the name
      */
     public String getName() {
-        return name;
+        return values().name;
     }
 
     /**
      * @param name the name to set
      */
-    public void setName(String name) {
-        this.name = name;
+    void setName(String name) {
+        Values v = values();
+        set(new Values(name, v.price, v.stock, v.min, v.max, v.machineId, v.companyName));
     }
 
     /**
-     * @return the price
+     * @return the price in units of the currency, for the tableviews. Totals should be made from getPriceCents.
      */
     public double getPrice() {
-        return price;
+        return Money.toDouble(getPriceCents());
     }
 
     /**
-     * @param price the price to set
+     * @param price the price to set, in units of the currency
      */
-    public void setPrice(double price) {
-        this.price = price;
+    void setPrice(double price) {
+        setPriceCents(Money.of(price));
     }
-    
+
+    /**
+     * @return the price in cents
+     */
+    public long getPriceCents() {
+        return values().price;
+    }
+
+    /**
+     * @param price the price to set, in cents
+     */
+    void setPriceCents(long price) {
+        Values v = values();
+        set(new Values(v.name, price, v.stock, v.min, v.max, v.machineId, v.companyName));
+    }
+
     /**
      * @return the stock
      */
     public int getStock() {
-        return stock;
+        return values().stock;
     }
 
     /**
      * @param stock the stock to set
      */
-    public void setStock(int stock) {
-        this.stock = stock;
+    void setStock(int stock) {
+        Values v = values();
+        set(new Values(v.name, v.price, stock, v.min, v.max, v.machineId, v.companyName));
     }
 
     /**
      * @return the min
      */
     public int getMin() {
-        return min;
+        return values().min;
     }
 
     /**
      * @param min the min to set
      */
-    public void setMin(int min) {
-        this.min = min;
+    void setMin(int min) {
+        Values v = values();
+        set(new Values(v.name, v.price, v.stock, min, v.max, v.machineId, v.companyName));
     }
 
     /**
      * @return the max
      */
     public int getMax() {
-        return max;
+        return values().max;
     }
 
     /**
      * @param max the max to set
      */
-    public void setMax(int max) {
-        this.max = max;
+    void setMax(int max) {
+        Values v = values();
+        set(new Values(v.name, v.price, v.stock, v.min, max, v.machineId, v.companyName));
+    }
+
+    /**
+     * Method makes the part read and write its fields through a slot of the columns.
+     *
+     * @param columns Columns that now hold the fields of the part.
+     * @param slot Slot of the part in the columns.
+     */
+    void attach(PartColumns columns, int slot){
+        this.slot = slot;
+        this.columns = columns;
+        this.values = null;
+    }
+
+    /**
+     * Method stores the fields back in the part after it leaves the columns.
+     *
+     * @param values Fields of the part.
+     */
+    void detach(Values values){
+        this.values = values;
+        this.columns = null;
+    }
+
+    /**
+     * Fields of a part at one moment. The machineId is only used by inhouse parts and the companyName by outsourced parts.
+     */
+    static final class Values {
+        final String name;
+        final long price;
+        final int stock;
+        final int min;
+        final int max;
+        final int machineId;
+        final String companyName;
+
+        Values(String name, long price, int stock, int min, int max, int machineId, String companyName){
+            this.name = name;
+            this.price = price;
+            this.stock = stock;
+            this.min = min;
+            this.max = max;
+            this.machineId = machineId;
+            this.companyName = companyName;
+        }
     }
-    
-}
\ No newline at end of file
+}
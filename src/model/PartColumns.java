@@ -0,0 +1,308 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * PartColumns class that stores the fields of part objects in arrays, one array per field.
+ * <p>
+ * A part that is attached to the columns keeps only its id and reads and writes its fields through its slot in the arrays, so the
+ * part object works as a small view over the columns and its fields are not stored twice. Scans over the whole inventory, like the
+ * total value of the parts or the number of parts below their minimum, then run as simple passes over primitive arrays instead of
+ * visiting every part object on the heap.
+ * </p>
+ * <p>
+ * Slots are kept dense. When a part is detached, the part in the last slot moves into the free slot.
+ * Attaching, detaching and writing hold the write lock of a StampedLock. Reads take no lock: they read the slot optimistically and
+ * only take the read lock if a write happened in the meantime. The arrays are kept together in one Slots object that is replaced when
+ * the columns grow, so a reader always sees arrays of the same length.
+ * </p>
+ *
+ * @author José L Dávila Montalvo
+ */
+public class PartColumns {
+
+    /**
+     * Columns of the attached parts. Only replaced while holding the write lock.
+     */
+    private volatile Slots slots;
+    private int size;
+
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Constructor for empty columns.
+     *
+     * @param capacity Number of parts the columns can hold before they grow.
+     */
+    public PartColumns(int capacity){
+        slots = new Slots(Math.max(capacity, 16));
+    }
+
+    /**
+     * @return the number of attached parts.
+     */
+    public int size(){
+        long stamp = lock.tryOptimisticRead();
+        int size = this.size;
+        if(!lock.validate(stamp)){
+            stamp = lock.readLock();
+            try{
+                size = this.size;
+            }finally{
+                lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Method moves the fields of a part into the columns and makes the part read them from there.
+     *
+     * @param part Part object to attach. Nothing is done if it is already attached.
+     */
+    public void attach(Part part){
+        long stamp = lock.writeLock();
+        try{
+            if(part.columns == this){
+                return;
+            }
+            if(size == slots.parts.length){
+                slots = slots.grow();
+            }
+            int slot = size++;
+            slots.store(slot, part.values());
+            slots.parts[slot] = part;
+            part.attach(this, slot);
+        }finally{
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method moves the fields of a part back into the part object and frees its slot.
+     *
+     * @param part Part object to detach. Nothing is done if it is not attached to these columns.
+     */
+    public void detach(Part part){
+        long stamp = lock.writeLock();
+        try{
+            if(part.columns != this){
+                return;
+            }
+            Slots s = slots;
+            int slot = part.slot;
+            part.detach(s.load(slot));
+
+            int last = --size;
+            if(slot != last){
+                s.store(slot, s.load(last));
+                s.parts[slot] = s.parts[last];
+                s.parts[slot].slot = slot;
+            }
+            s.name[last] = null;
+            s.companyName[last] = null;
+            s.parts[last] = null;
+        }finally{
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method reads the fields of a part without locking, unless a write happens at the same time.
+     *
+     * @param part Part object attached to these columns.
+     * @return the fields of the part, or null if the part is not attached to these columns any more.
+     */
+    Part.Values read(Part part){
+        long stamp = lock.tryOptimisticRead();
+        Part.Values values = slots.find(part);
+        if(!lock.validate(stamp)){
+            stamp = lock.readLock();
+            try{
+                values = slots.find(part);
+            }finally{
+                lock.unlockRead(stamp);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Method stores new fields for a part in its slot.
+     *
+     * @param part Part object attached to these columns.
+     * @param values New fields of the part.
+     * @return true if the fields were stored in the columns, false if the part is not attached to them.
+     */
+    boolean write(Part part, Part.Values values){
+        long stamp = lock.writeLock();
+        try{
+            if(part.columns != this){
+                return false;
+            }
+            slots.store(part.slot, values);
+            return true;
+        }finally{
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method adds up price times stock for every attached part.
+     *
+     * @return the total value of the attached parts in cents.
+     * @throws ArithmeticException if the total does not fit in a long.
+     */
+    public long totalValue(){
+        long stamp = lock.tryOptimisticRead();
+        try{
+            long total = totalValue(slots, size);
+            if(lock.validate(stamp)){
+                return total;
+            }
+        }catch(ArithmeticException e){
+            // a sum of numbers changed during the scan may overflow, only an overflow of a valid scan is reported
+            if(lock.validate(stamp)){
+                throw e;
+            }
+        }
+        stamp = lock.readLock();
+        try{
+            return totalValue(slots, size);
+        }finally{
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Method adds up the stock of every attached part.
+     *
+     * @return the total stock of the attached parts.
+     */
+    public long totalStock(){
+        long stamp = lock.tryOptimisticRead();
+        long total = totalStock(slots, size);
+        if(!lock.validate(stamp)){
+            stamp = lock.readLock();
+            try{
+                total = totalStock(slots, size);
+            }finally{
+                lock.unlockRead(stamp);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Method counts the attached parts whose stock is below their minimum.
+     *
+     * @return the number of parts with low stock.
+     */
+    public int lowStockCount(){
+        long stamp = lock.tryOptimisticRead();
+        int count = lowStockCount(slots, size);
+        if(!lock.validate(stamp)){
+            stamp = lock.readLock();
+            try{
+                count = lowStockCount(slots, size);
+            }finally{
+                lock.unlockRead(stamp);
+            }
+        }
+        return count;
+    }
+
+    private static long totalValue(Slots s, int size){
+        long total = 0;
+        for(int i = 0; i < size && i < s.price.length; i++){
+            total = Math.addExact(total, Math.multiplyExact(s.price[i], s.stock[i]));
+        }
+        return total;
+    }
+
+    private static long totalStock(Slots s, int size){
+        long total = 0;
+        for(int i = 0; i < size && i < s.stock.length; i++){
+            total += s.stock[i];
+        }
+        return total;
+    }
+
+    private static int lowStockCount(Slots s, int size){
+        int count = 0;
+        for(int i = 0; i < size && i < s.stock.length; i++){
+            if(s.stock[i] < s.min[i]){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Arrays of the columns, all of the same length and indexed by slot.
+     */
+    private static final class Slots {
+        final long[] price;
+        final int[] stock;
+        final int[] min;
+        final int[] max;
+        final int[] machineId;
+        final String[] name;
+        final String[] companyName;
+        final Part[] parts;
+
+        Slots(int capacity){
+            this(new long[capacity], new int[capacity], new int[capacity], new int[capacity], new int[capacity], new String[capacity],
+                    new String[capacity], new Part[capacity]);
+        }
+
+        private Slots(long[] price, int[] stock, int[] min, int[] max, int[] machineId, String[] name, String[] companyName,
+                      Part[] parts){
+            this.price = price;
+            this.stock = stock;
+            this.min = min;
+            this.max = max;
+            this.machineId = machineId;
+            this.name = name;
+            this.companyName = companyName;
+            this.parts = parts;
+        }
+
+        /**
+         * @return new slots with every array twice as long.
+         */
+        Slots grow(){
+            int capacity = parts.length * 2;
+            return new Slots(Arrays.copyOf(price, capacity), Arrays.copyOf(stock, capacity), Arrays.copyOf(min, capacity),
+                    Arrays.copyOf(max, capacity), Arrays.copyOf(machineId, capacity), Arrays.copyOf(name, capacity),
+                    Arrays.copyOf(companyName, capacity), Arrays.copyOf(parts, capacity));
+        }
+
+        void store(int slot, Part.Values values){
+            price[slot] = values.price;
+            stock[slot] = values.stock;
+            min[slot] = values.min;
+            max[slot] = values.max;
+            machineId[slot] = values.machineId;
+            name[slot] = values.name;
+            companyName[slot] = values.companyName;
+        }
+
+        Part.Values load(int slot){
+            return new Part.Values(name[slot], price[slot], stock[slot], min[slot], max[slot], machineId[slot], companyName[slot]);
+        }
+
+        /**
+         * @param part Part object to look for.
+         * @return the fields in the slot of the part, or null if the part is not in its slot.
+         */
+        Part.Values find(Part part){
+            int slot = part.slot;
+            if(slot < 0 || slot >= parts.length || parts[slot] != part){
+                return null;
+            }
+            return load(slot);
+        }
+    }
+}
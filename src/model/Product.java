@@ -3,9 +3,20 @@ package model;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.util.Collection;
+
 /**
  * Product class that creates product objects and handles the parts associated to the product.
  * Product objects have a list of parts that are associated to it.
+ * <p>
+ * The fields of a product, with its list of associated parts, are kept together in one Values object that is never changed. A change
+ * publishes a new Values object in a single write, so a reader sees every field of the same change. The list returned by
+ * getAssociatedParts cannot be changed, parts are added and removed with the methods of this class or of the Inventory class.
+ * </p>
+ * <p>
+ * The setters can only be used inside the model package. Other code changes a product through the Inventory class, so the log, the
+ * ledger, the indexes and the listeners see every change.
+ * </p>
  *
  * @author José L Dávila Montalvo
  */
@@ -15,47 +26,27 @@ public class Product {
      * Private properties for the Product class.
      */
     private int id;
-    private String name;
-    private double price;
-    private int stock;
-    private int min;
-    private int max;
-    private ObservableList<Part> ascParts;
-
-    /**
-     * Public attribute for the product class
-     * The list, associatedParts, is the list used to temporarily store associated parts that are added to ascParts.
-     */
-    public static ObservableList<Part> associatedParts = FXCollections.observableArrayList();
+    private volatile Values values;
 
     /**
      * Constructor for Product objects. Each product has a id, name, price, stock, min, max, and a parts list.
      *
      * @param id    Id number of the product object.
      * @param name  Name of the product object.
-     * @param price Price of the product object.
+     * @param price Price of the product object in cents.
      * @param stock Quantity of the product object in inventory.
      * @param min   Minimum quantity of the product object in inventory.
      * @param max   Maximum quantity of the product object in inventory.
-     * @param ascParts  List of parts that are associated with the product
+     * @param ascParts  List of parts that are associated with the product, copied into the product.
      */
-    public Product(int id, String name, double price, int stock, int min, int max, ObservableList ascParts) {
+    public Product(int id, String name, long price, int stock, int min, int max, ObservableList ascParts) {
         this.id = id;
-        this.name = name;
-        this.price = price;
-        this.stock = stock;
-        this.min = min;
-        this.max = max;
-        this.ascParts = FXCollections.observableArrayList(ascParts);
+        this.values = new Values(name, price, stock, min, max, partsOf(ascParts));
     }
 
-    /**
-     * Method that will add a part to the associatedParts list.
-     *
-     * @param part Part object that will be added to the list.
-     */
-    public static void addAssociatedPart(Part part){
-        associatedParts.add(part);
+    private Product(int id, Values values) {
+        this.id = id;
+        this.values = values;
     }
 
     /**
@@ -65,66 +56,85 @@ public class Product {
      * @param part Selected part to be added to the associated parts list.
      */
     public static void addToExistingProduct(Product product, Part part){
-        product.ascParts.add(part);
+        Inventory.changeAssociatedParts(product, part, () -> {
+            ObservableList<Part> parts = FXCollections.observableArrayList(product.getAssociatedParts());
+            parts.add(part);
+            product.setAssociatedParts(parts);
+            return true;
+        });
     }
 
     /**
-     * Method clears the associatedParts list to prepare it for new part object input.
+     * Method deletes a part object from the list for the specified product. A part that is in the list more than once is only
+     * deleted once.
+     *
+     * @param product Selected product object.
+     * @param part Part object to be deleted.
+     * @return true if the part is deleted from the list or false if it is not in the list.
+     * */
+    public static boolean deleteAssociatedPart(Product product, Part part){
+        return Inventory.changeAssociatedParts(product, null, () -> {
+            ObservableList<Part> parts = FXCollections.observableArrayList(product.getAssociatedParts());
+            for(int i = 0; i < parts.size(); i++){
+                if(parts.get(i).getId() == part.getId()){
+                    parts.remove(i);
+                    product.setAssociatedParts(parts);
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    /**
+     * @param parts Parts to copy, may be null.
+     * @return a list with the parts that cannot be changed.
      */
-    public static void clearAssociatedParts(){
-            associatedParts.clear();
+    private static ObservableList<Part> partsOf(Collection<? extends Part> parts){
+        ObservableList<Part> copy = parts == null ? FXCollections.observableArrayList() : FXCollections.observableArrayList(parts);
+        return FXCollections.unmodifiableObservableList(copy);
     }
 
     /**
-     * @return the list of associatedParts
+     * @return the fields of the product, all from the same change.
      */
-    public static ObservableList<Part> getAllAssociatedParts() {
-        return associatedParts;
+    Values values() {
+        return values;
     }
 
     /**
-     * Method deletes a part object from the list.
+     * Method publishes new fields for the product in one write. Changes to a product in the inventory are made while holding the
+     * lock of the product.
      *
-     * @param part Part object to be deleted.
-     * @return associatedParts.remove(part) If true, the part is deleted from the list or false Part is not deleted.
-     * */
-    public static boolean deleteAssociatedPart(Part part){
-        for(Part thisPart: associatedParts){
-            if(thisPart.getId() == part.getId()) {
-                return associatedParts.remove(part);
-            }
-        }
-        return false;
+     * @param values New fields of the product.
+     */
+    void set(Values values) {
+        this.values = values;
     }
 
     /**
-     * Method deletes a part object from the list for the specified product.
+     * Method makes a new product with the same id and the fields of one change, for readers that use several fields of a product
+     * that may be changed by other threads.
      *
-     * @param product Selected product object.
-     * @param part Part object to be deleted.
-     * @return product.ascParts.remove(part) If true, the part is deleted from the list false Part is not deleted.
-     * */
-    public static boolean deleteAssociatedPart(Product product, Part part){
-        for(Part thisPart: product.ascParts){
-            if(thisPart.getId() == part.getId()) {
-                return product.ascParts.remove(part);
-            }
-        }
-        return false;
+     * @return a product that is not in the inventory and has the current fields of this product.
+     */
+    public Product copy() {
+        return new Product(id, values);
     }
 
     /**
-     * @return the list of ascParts
+     * @return the list of ascParts, which cannot be changed
      */
     public ObservableList<Part> getAssociatedParts() {
-        return ascParts;
+        return values.parts;
     }
 
     /**
-     * @param ascParts the ascParts list to set
+     * @param ascParts the ascParts list to set, copied into the product
      */
-    public void setAssociatedParts(ObservableList<Part> ascParts) {
-        this.ascParts = ascParts;
+    void setAssociatedParts(ObservableList<Part> ascParts) {
+        Values v = values;
+        set(new Values(v.name, v.price, v.stock, v.min, v.max, partsOf(ascParts)));
     }
 
     /**
@@ -137,7 +147,7 @@ public class Product {
     /**
      * @param id the id to set
      */
-    public void setId(int id) {
+    void setId(int id) {
         this.id = id;
     }
 
@@ -145,70 +155,116 @@ public class Product {
      * @return the name
      */
     public String getName() {
-        return name;
+        return values.name;
     }
 
     /**
      * @param name the name to set
      */
-    public void setName(String name) {
-        this.name = name;
+    void setName(String name) {
+        Values v = values;
+        set(new Values(name, v.price, v.stock, v.min, v.max, v.parts));
     }
 
     /**
-     * @return the price
+     * @return the price in units of the currency, for the tableviews. Totals should be made from getPriceCents.
      */
     public double getPrice() {
-        return price;
+        return Money.toDouble(values.price);
     }
 
     /**
-     * @param price the price to set
+     * @param price the price to set, in units of the currency
      */
-    public void setPrice(double price) {
-        this.price = price;
+    void setPrice(double price) {
+        setPriceCents(Money.of(price));
+    }
+
+    /**
+     * @return the price in cents
+     */
+    public long getPriceCents() {
+        return values.price;
+    }
+
+    /**
+     * @param price the price to set, in cents
+     */
+    void setPriceCents(long price) {
+        Values v = values;
+        set(new Values(v.name, price, v.stock, v.min, v.max, v.parts));
     }
 
     /**
      * @return the stock
      */
     public int getStock() {
-        return stock;
+        return values.stock;
     }
 
     /**
      * @param stock the stock to set
      */
-    public void setStock(int stock) {
-        this.stock = stock;
+    void setStock(int stock) {
+        Values v = values;
+        set(new Values(v.name, v.price, stock, v.min, v.max, v.parts));
     }
 
     /**
      * @return the min
      */
     public int getMin() {
-        return min;
+        return values.min;
     }
 
     /**
      * @param min the min to set
      */
-    public void setMin(int min) {
-        this.min = min;
+    void setMin(int min) {
+        Values v = values;
+        set(new Values(v.name, v.price, v.stock, min, v.max, v.parts));
     }
 
     /**
      * @return the max
      */
     public int getMax() {
-        return max;
+        return values.max;
     }
 
     /**
      * @param max the max to set
      */
-    public void setMax(int max) {
-        this.max = max;
+    void setMax(int max) {
+        Values v = values;
+        set(new Values(v.name, v.price, v.stock, v.min, max, v.parts));
     }
-}
 
+    /**
+     * Fields of a product at one moment. The list of parts cannot be changed.
+     */
+    static final class Values {
+        final String name;
+        final long price;
+        final int stock;
+        final int min;
+        final int max;
+        final ObservableList<Part> parts;
+
+        private Values(String name, long price, int stock, int min, int max, ObservableList<Part> parts){
+            this.name = name;
+            this.price = price;
+            this.stock = stock;
+            this.min = min;
+            this.max = max;
+            this.parts = parts;
+        }
+
+        /**
+         * @return fields with a copy of the parts given, which cannot be changed.
+         */
+        static Values of(String name, long price, int stock, int min, int max, Collection<? extends Part> parts){
+            return new Values(name, price, stock, min, max, partsOf(parts));
+        }
+    }
+}
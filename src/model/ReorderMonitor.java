@@ -0,0 +1,251 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * ReorderMonitor class that watches the Inventory and keeps every part and product that has reached its min stock, most urgent first.
+ * <p>
+ * An item needs to be reordered when its stock is at or below its min, and is more urgent the further below min it is. The
+ * suggestion for an item is to order enough to bring its stock back up to max. The monitor is an InventoryListener: the inventory is
+ * read once when the monitor starts and after that only the item that changed is looked at.
+ * </p>
+ * <p>
+ * Suggestions are kept in a sorted tree with a map from each item to its suggestion, so an item is moved, added or removed in
+ * logarithmic time and the most urgent items are read from the start of the tree without looking at the others.
+ * </p>
+ *
+ * @author José L Dávila Montalvo
+ */
+public class ReorderMonitor implements InventoryListener {
+
+    /**
+     * Order of the suggestions: furthest below min first, then largest order, then parts before products, then by id.
+     */
+    private static final Comparator<Suggestion> URGENCY = Comparator.comparingInt(Suggestion::getShortage).reversed()
+            .thenComparing(Comparator.comparingInt(Suggestion::getReorderQuantity).reversed())
+            .thenComparing(Suggestion::isPart, Comparator.reverseOrder())
+            .thenComparingInt(Suggestion::getId);
+
+    /**
+     * Private properties of the monitor.
+     */
+    private final TreeSet<Suggestion> queue = new TreeSet<>(URGENCY);
+    private final Map<Long, Suggestion> byItem = new HashMap<>();
+    private final List<Consumer<Suggestion>> consumers = new CopyOnWriteArrayList<>();
+
+    private ReorderMonitor(){
+    }
+
+    /**
+     * Method creates a monitor, reads the current inventory once and starts listening for changes. No change is missed between
+     * the read and the first event.
+     *
+     * @return the running monitor.
+     */
+    public static ReorderMonitor start(){
+        ReorderMonitor monitor = new ReorderMonitor();
+        Inventory.snapshot(() -> {
+            for(Part part: Inventory.partValues()){
+                monitor.partAdded(part);
+            }
+            for(Product product: Inventory.productValues()){
+                monitor.productAdded(product);
+            }
+            Inventory.addListener(monitor);
+            return null;
+        });
+        return monitor;
+    }
+
+    /**
+     * Method stops listening for changes. The suggestions already found are kept.
+     */
+    public void stop(){
+        Inventory.removeListener(this);
+    }
+
+    /**
+     * Method registers an object that is told about every new or changed suggestion, on the thread that changed the inventory.
+     *
+     * @param consumer Object told about the suggestions.
+     */
+    public void addSuggestionListener(Consumer<Suggestion> consumer){
+        consumers.add(consumer);
+    }
+
+    /**
+     * @param consumer Object that no longer needs the suggestions.
+     */
+    public void removeSuggestionListener(Consumer<Suggestion> consumer){
+        consumers.remove(consumer);
+    }
+
+    /**
+     * Method returns the most urgent suggestions.
+     *
+     * @param count Most suggestions returned.
+     * @return the suggestions, most urgent first.
+     */
+    public synchronized List<Suggestion> mostUrgent(int count){
+        List<Suggestion> urgent = new ArrayList<>(Math.min(count, queue.size()));
+        Iterator<Suggestion> suggestions = queue.iterator();
+        while(urgent.size() < count && suggestions.hasNext()){
+            urgent.add(suggestions.next());
+        }
+        return urgent;
+    }
+
+    /**
+     * @return the number of parts and products that need to be reordered.
+     */
+    public synchronized int size(){
+        return queue.size();
+    }
+
+    @Override
+    public void partAdded(Part part){
+        update(new Suggestion(true, part.getId(), part.getName(), part.getStock(), part.getMin(), part.getMax()));
+    }
+
+    @Override
+    public void partUpdated(Part part){
+        partAdded(part);
+    }
+
+    @Override
+    public void partDeleted(Part part){
+        remove(true, part.getId());
+    }
+
+    @Override
+    public void productAdded(Product product){
+        update(new Suggestion(false, product.getId(), product.getName(), product.getStock(), product.getMin(), product.getMax()));
+    }
+
+    @Override
+    public void productUpdated(Product product){
+        productAdded(product);
+    }
+
+    @Override
+    public void productDeleted(Product product){
+        remove(false, product.getId());
+    }
+
+    /**
+     * Method puts the current state of an item in the queue, or takes it out if its stock is above min.
+     *
+     * @param suggestion Current state of the item.
+     */
+    private void update(Suggestion suggestion){
+        boolean needed = suggestion.stock <= suggestion.min;
+        synchronized(this){
+            Suggestion previous = needed ? byItem.put(suggestion.key(), suggestion) : byItem.remove(suggestion.key());
+            if(previous != null){
+                queue.remove(previous);
+            }
+            if(!needed){
+                return;
+            }
+            queue.add(suggestion);
+            if(previous != null && previous.getShortage() == suggestion.getShortage()
+                    && previous.getReorderQuantity() == suggestion.getReorderQuantity()){
+                return;
+            }
+        }
+        for(Consumer<Suggestion> consumer: consumers){
+            consumer.accept(suggestion);
+        }
+    }
+
+    private synchronized void remove(boolean part, int id){
+        Suggestion previous = byItem.remove(Suggestion.key(part, id));
+        if(previous != null){
+            queue.remove(previous);
+        }
+    }
+
+    /**
+     * Suggestion to reorder a part or product, with the stock, min and max it had when the suggestion was made.
+     */
+    public static final class Suggestion {
+        private final boolean part;
+        private final int id;
+        private final String name;
+        private final int stock;
+        private final int min;
+        private final int max;
+
+        Suggestion(boolean part, int id, String name, int stock, int min, int max){
+            this.part = part;
+            this.id = id;
+            this.name = name;
+            this.stock = stock;
+            this.min = min;
+            this.max = max;
+        }
+
+        /**
+         * @return true for a part, false for a product.
+         */
+        public boolean isPart(){
+            return part;
+        }
+
+        public int getId(){
+            return id;
+        }
+
+        public String getName(){
+            return name;
+        }
+
+        public int getStock(){
+            return stock;
+        }
+
+        public int getMin(){
+            return min;
+        }
+
+        public int getMax(){
+            return max;
+        }
+
+        /**
+         * @return how many units the stock is below min, 0 when the stock is at min.
+         */
+        public int getShortage(){
+            return min - stock;
+        }
+
+        /**
+         * @return the number of units to order to bring the stock up to max.
+         */
+        public int getReorderQuantity(){
+            return Math.max(0, max - stock);
+        }
+
+        private long key(){
+            return key(part, id);
+        }
+
+        private static long key(boolean part, int id){
+            return part ? id : -1L - id;
+        }
+
+        @Override
+        public String toString(){
+            return (part ? "Part " : "Product ") + id + " " + name + ": stock " + stock + ", min " + min + ", order "
+                    + getReorderQuantity();
+        }
+    }
+}
@@ -0,0 +1,748 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.IntStream;
+
+/**
+ * StockLedger class that records every stock movement of the Inventory in an append-only file, so the stock of every part and product
+ * can be explained and rebuilt.
+ * <p>
+ * Movements are fixed size binary records that are never changed or removed. Like the InventoryLog, movements are queued by the
+ * thread that makes them and written by a background thread with one write and one fsync for every group of waiting movements.
+ * The writer keeps the stock of every item as it writes, and every so many movements it saves that stock to a checkpoint file.
+ * </p>
+ * <p>
+ * Replay starts from the newest checkpoint and only reads the movements written after it. Those movements are split into chunks
+ * that are folded in parallel into the stock change of each item, and the changes are added to the checkpoint.
+ * </p>
+ * <p>
+ * The ledger holds the stock of the Inventory: when the ledger is opened, every part or product whose stock in the Inventory differs
+ * from its replayed stock gets the stock of the ledger, and the movements already in the ledger are never rewritten. The InventoryLog
+ * is made to write its records after the ledger with writeAfter, so the ledger is never behind the saved inventory and giving its
+ * stock back only brings forward movements whose record was lost. Every stock given back is reported by getProblems, and so is
+ * stock the ledger cannot give back, like stock outside the min/max range of the item or the stock of an item that is not in the
+ * Inventory.
+ * </p>
+ *
+ * @author José L Dávila Montalvo
+ */
+public class StockLedger implements InventoryListener, Closeable {
+
+    /**
+     * Default number of movements written between two checkpoints.
+     */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 1_000_000;
+
+    /**
+     * Size of one movement in the ledger file: time, item kind, movement type, two unused bytes, id and change.
+     */
+    static final int RECORD_SIZE = 24;
+
+    /**
+     * Most movements written by a single group commit.
+     */
+    private static final int MAX_BATCH = 8192;
+
+    /**
+     * Number of checkpoint files kept, older ones are deleted.
+     */
+    private static final int CHECKPOINTS_KEPT = 2;
+
+    private static final int CHECKPOINT_MAGIC = 0x53544b43;
+
+    /**
+     * Most bytes of the ledger read through one memory mapping, a whole number of records.
+     */
+    private static final long MAX_MAPPING = (Integer.MAX_VALUE / RECORD_SIZE) * (long) RECORD_SIZE;
+
+    /**
+     * Movement placed in the queue to stop the writer thread.
+     */
+    private static final StockMovement STOP = new StockMovement(0, StockMovement.Type.ADJUSTMENT, true, 0, 0);
+
+    /**
+     * Private properties of the ledger.
+     */
+    private final Path directory;
+    private final Path ledgerFile;
+    private final int checkpointInterval;
+    private final Levels levels;
+    private final BlockingQueue<StockMovement> pending = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final FileChannel channel;
+    private long sinceCheckpoint;
+    private IOException failure;
+    private final List<String> problems = new ArrayList<>();
+
+    /**
+     * Number of movements queued, number of movements that are safely on disk, and whether the ledger was closed. Guarded by this
+     * object.
+     */
+    private long queued;
+    private long durable;
+    private boolean closed;
+
+    /**
+     * Constructor replays the ledger and opens it for appending, use the open method to also start recording.
+     *
+     * @param directory Folder that holds the ledger and checkpoint files.
+     * @param checkpointInterval Number of movements written between two checkpoints.
+     * @throws IOException if the files cannot be read or opened.
+     */
+    private StockLedger(Path directory, int checkpointInterval) throws IOException {
+        if(checkpointInterval < 1){
+            throw new IllegalArgumentException("Checkpoint interval must be at least one");
+        }
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.ledgerFile = directory.resolve("stock.ledger");
+        this.checkpointInterval = checkpointInterval;
+        this.channel = FileChannel.open(ledgerFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        // a movement cut short when the program stopped while writing it is dropped
+        long size = channel.size();
+        if(size % RECORD_SIZE != 0){
+            channel.truncate(size - size % RECORD_SIZE);
+        }
+        channel.position(channel.size());
+        this.levels = replay(directory);
+        this.writer = new Thread(this::writeLoop, "stock-ledger");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Method opens the ledger in a folder, gives the Inventory the stock replayed from the ledger, and starts recording every
+     * stock movement made after that.
+     *
+     * @param directory Folder that holds the ledger and checkpoint files. It is created if it does not exist.
+     * @return the open ledger.
+     * @throws IOException if the files cannot be read or written.
+     */
+    public static StockLedger open(Path directory) throws IOException {
+        return open(directory, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Method opens the ledger in a folder, gives the Inventory the stock replayed from the ledger, and starts recording every
+     * stock movement made after that.
+     *
+     * @param directory Folder that holds the ledger and checkpoint files. It is created if it does not exist.
+     * @param checkpointInterval Number of movements written between two checkpoints.
+     * @return the open ledger.
+     * @throws IOException if the files cannot be read or written.
+     */
+    public static StockLedger open(Path directory, int checkpointInterval) throws IOException {
+        StockLedger ledger = new StockLedger(directory, checkpointInterval);
+        ledger.sinceCheckpoint = ledger.levels.eventCount - newestCheckpointCount(directory);
+        Inventory.snapshot(() -> {
+            ledger.restore();
+            Inventory.addListener(ledger);
+            return null;
+        });
+        ledger.writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(ledger::closeQuietly, "stock-ledger-shutdown"));
+        return ledger;
+    }
+
+    /**
+     * Method rebuilds the stock of every part and product from the newest checkpoint and the movements written after it.
+     *
+     * @param directory Folder that holds the ledger and checkpoint files.
+     * @return the stock of every item that ever had a movement.
+     * @throws IOException if the ledger cannot be read.
+     */
+    public static Levels replay(Path directory) throws IOException {
+        long start = System.nanoTime();
+        Path ledgerFile = directory.resolve("stock.ledger");
+        long records = Files.exists(ledgerFile) ? Files.size(ledgerFile) / RECORD_SIZE : 0;
+
+        Levels levels = null;
+        for(Path checkpoint: checkpoints(directory)){
+            levels = readCheckpoint(checkpoint, records);
+            if(levels != null){
+                break;
+            }
+        }
+        if(levels == null){
+            levels = new Levels(new LongLongMap(1024), 0);
+        }
+
+        if(records > levels.eventCount){
+            try(FileChannel channel = FileChannel.open(ledgerFile, StandardOpenOption.READ)){
+                long first = levels.eventCount;
+                long count = records - first;
+                long perChunk = Math.max(1 << 16, count / (Runtime.getRuntime().availableProcessors() * 4L) + 1);
+                perChunk = Math.min(perChunk, MAX_MAPPING / RECORD_SIZE);
+                int chunks = (int) ((count + perChunk - 1) / perChunk);
+                long chunkSize = perChunk;
+
+                // every chunk is folded into the change of each item on its own, then the changes are added together
+                LongLongMap changes = IntStream.range(0, chunks).parallel().mapToObj(chunk -> {
+                    long from = first + chunk * chunkSize;
+                    long to = Math.min(records, from + chunkSize);
+                    try{
+                        return fold(channel, from, to);
+                    }catch (IOException e){
+                        throw new UncheckedIOException(e);
+                    }
+                }).reduce((a, b) -> {
+                    a.addAll(b);
+                    return a;
+                }).orElseGet(() -> new LongLongMap(16));
+
+                levels.stock.addAll(changes);
+                levels.eventCount = records;
+            }catch (UncheckedIOException e){
+                throw e.getCause();
+            }
+        }
+        levels.elapsedNanos = System.nanoTime() - start;
+        return levels;
+    }
+
+    /**
+     * Method returns every movement of one part or product, oldest first. Movements still waiting to be written are written first.
+     *
+     * @param part True for a part, false for a product.
+     * @param id Id of the part or product.
+     * @return the movements of the item.
+     * @throws IOException if the ledger cannot be read.
+     */
+    public List<StockMovement> history(boolean part, int id) throws IOException {
+        sync();
+        List<StockMovement> movements = new ArrayList<>();
+        long records = channel.size() / RECORD_SIZE;
+        int kind = part ? 0 : 1;
+        for(long from = 0; from < records; from += MAX_MAPPING / RECORD_SIZE){
+            long to = Math.min(records, from + MAX_MAPPING / RECORD_SIZE);
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, from * RECORD_SIZE, (to - from) * RECORD_SIZE);
+            for(int at = 0; at < bytes.limit(); at += RECORD_SIZE){
+                if(bytes.get(at + 8) == kind && bytes.getInt(at + 12) == id){
+                    movements.add(new StockMovement(bytes.getLong(at), StockMovement.Type.values()[bytes.get(at + 9)], part, id,
+                            bytes.getLong(at + 16)));
+                }
+            }
+        }
+        return movements;
+    }
+
+    /**
+     * @return a message for every item whose stock in the Inventory did not match the ledger when the ledger was opened, saying
+     * whether the stock of the ledger was given to the Inventory or why it could not be.
+     */
+    public List<String> getProblems(){
+        return Collections.unmodifiableList(problems);
+    }
+
+    /**
+     * Method waits until every movement made before the call is safely on disk.
+     *
+     * @throws IOException if the writer thread failed.
+     */
+    public synchronized void sync() throws IOException {
+        if(!awaitDurable()){
+            throw new IOException("The stock ledger was closed before every movement was written");
+        }
+    }
+
+    /**
+     * Method waits until every movement made before the call is safely on disk, or until the ledger is closed.
+     *
+     * @return true if every movement is on disk, false if the ledger was closed first.
+     * @throws IOException if the writer thread failed.
+     */
+    synchronized boolean awaitDurable() throws IOException {
+        long target = queued;
+        while(durable < target && failure == null && !closed){
+            try{
+                wait();
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the stock ledger", e);
+            }
+        }
+        if(failure != null){
+            throw failure;
+        }
+        return durable >= target;
+    }
+
+    /**
+     * Method stops recording, writes every queued movement and closes the ledger file.
+     *
+     * @throws IOException if the last movements could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        Inventory.removeListener(this);
+        if(writer.isAlive()){
+            pending.add(STOP);
+            try{
+                writer.join();
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this){
+            closed = true;
+            notifyAll();
+        }
+        if(channel.isOpen()){
+            channel.close();
+        }
+        if(failure != null){
+            throw failure;
+        }
+    }
+
+    @Override
+    public void stockMoved(StockMovement movement){
+        synchronized (this){
+            queued++;
+        }
+        pending.add(movement);
+    }
+
+    /**
+     * Method gives every part and product of the Inventory its stock in the ledger. Called while the Inventory is held by snapshot,
+     * before the ledger listens to it. An item the ledger never saw, like one saved before the ledger was used, is recorded once with
+     * its whole stock, which is the first movement of the item and does not change any movement already written.
+     */
+    private void restore(){
+        long now = System.currentTimeMillis();
+        LongLongMap seen = new LongLongMap(1024);
+        for(Part part: Inventory.partValues()){
+            restore(true, part.getId(), part.getStock(), part.getMin(), part.getMax(), seen, now);
+        }
+        for(Product product: Inventory.productValues()){
+            restore(false, product.getId(), product.getStock(), product.getMin(), product.getMax(), seen, now);
+        }
+        levels.stock.forEach((key, stock) -> {
+            if(stock != 0 && seen.get(key) == 0){
+                problems.add("The stock ledger holds " + stock + " units of " + describe(key) + ", which is not in the inventory");
+            }
+        });
+    }
+
+    /**
+     * Method gives one item its stock in the ledger and reports it, or reports why it cannot.
+     *
+     * @param part True for a part, false for a product.
+     * @param id Id of the part or product.
+     * @param stock Stock of the item in the Inventory.
+     * @param min Minimum stock of the item.
+     * @param max Maximum stock of the item.
+     * @param seen Keys of the items of the Inventory, the key of this item is added.
+     * @param now Time of the first movement of an item the ledger never saw.
+     */
+    private void restore(boolean part, int id, int stock, int min, int max, LongLongMap seen, long now){
+        long key = key(part, id);
+        seen.add(key, 1);
+        if(!levels.stock.contains(key)){
+            if(stock != 0){
+                stockMoved(new StockMovement(now, StockMovement.Type.ADJUSTMENT, part, id, stock));
+            }
+            return;
+        }
+        long ledgerStock = levels.stock.get(key);
+        if(ledgerStock == stock){
+            return;
+        }
+        if(ledgerStock < min || ledgerStock > max){
+            problems.add("The stock ledger holds " + ledgerStock + " units of " + describe(key) + ", which is outside its min/max range,"
+                    + " the inventory keeps " + stock + " units");
+            return;
+        }
+        if(part){
+            Inventory.restorePartStock(id, (int) ledgerStock);
+        }else{
+            Inventory.restoreProductStock(id, (int) ledgerStock);
+        }
+        problems.add("The inventory held " + stock + " units of " + describe(key) + " and the stock ledger holds " + ledgerStock
+                + ", the stock of the ledger is used");
+    }
+
+    /**
+     * @return the kind and id of the item of a key, for messages.
+     */
+    private static String describe(long key){
+        return (key >= 0 ? "part " : "product ") + keyId(key);
+    }
+
+    /**
+     * Writer thread loop. Takes every movement waiting in the queue, writes them with one write call and one fsync, and writes a
+     * checkpoint when enough movements were written since the last one.
+     */
+    private void writeLoop(){
+        List<StockMovement> batch = new ArrayList<>(MAX_BATCH);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_BATCH * RECORD_SIZE);
+        boolean running = true;
+        while(running){
+            try{
+                batch.add(pending.take());
+                pending.drainTo(batch, MAX_BATCH - 1);
+
+                buffer.clear();
+                int written = 0;
+                for(StockMovement movement: batch){
+                    if(movement == STOP){
+                        running = false;
+                        continue;
+                    }
+                    buffer.putLong(movement.getTime());
+                    buffer.put((byte) (movement.isPart() ? 0 : 1));
+                    buffer.put((byte) movement.getType().ordinal());
+                    buffer.putShort((short) 0);
+                    buffer.putInt(movement.getId());
+                    buffer.putLong(movement.getChange());
+                    levels.stock.add(key(movement.isPart(), movement.getId()), movement.getChange());
+                    written++;
+                }
+
+                if(written > 0){
+                    buffer.flip();
+                    while(buffer.hasRemaining()){
+                        channel.write(buffer);
+                    }
+                    channel.force(false);
+                    levels.eventCount += written;
+                    sinceCheckpoint += written;
+                }
+
+                synchronized (this){
+                    durable += written;
+                    notifyAll();
+                }
+
+                if(sinceCheckpoint >= checkpointInterval){
+                    writeCheckpoint();
+                }
+            }catch (InterruptedException e){
+                running = false;
+            }catch (IOException e){
+                synchronized (this){
+                    failure = e;
+                    notifyAll();
+                }
+                running = false;
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Method saves the stock of every item to a new checkpoint file and deletes the oldest checkpoints.
+     *
+     * @throws IOException if the checkpoint cannot be written.
+     */
+    private void writeCheckpoint() throws IOException {
+        Path checkpoint = directory.resolve(String.format("stock-%020d.checkpoint", levels.eventCount));
+        Path temporary = directory.resolve("stock.checkpoint.tmp");
+        try(FileOutputStream file = new FileOutputStream(temporary.toFile());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))){
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeLong(levels.eventCount);
+            out.writeInt(levels.stock.size());
+            IOException[] error = new IOException[1];
+            levels.stock.forEach((key, stock) -> {
+                try{
+                    out.writeLong(key);
+                    out.writeLong(stock);
+                }catch (IOException e){
+                    error[0] = e;
+                }
+            });
+            if(error[0] != null){
+                throw error[0];
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        sinceCheckpoint = 0;
+
+        List<Path> checkpoints = checkpoints(directory);
+        for(int i = CHECKPOINTS_KEPT; i < checkpoints.size(); i++){
+            Files.deleteIfExists(checkpoints.get(i));
+        }
+    }
+
+    /**
+     * @param directory Folder that holds the checkpoint files.
+     * @return the checkpoint files, newest first.
+     * @throws IOException if the folder cannot be read.
+     */
+    private static List<Path> checkpoints(Path directory) throws IOException {
+        List<Path> checkpoints = new ArrayList<>();
+        if(!Files.isDirectory(directory)){
+            return checkpoints;
+        }
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "stock-*.checkpoint")){
+            for(Path file: files){
+                checkpoints.add(file);
+            }
+        }
+        // the movement count in the name has a fixed number of digits, so names sort in count order
+        checkpoints.sort(Collections.reverseOrder());
+        return checkpoints;
+    }
+
+    private static long newestCheckpointCount(Path directory) throws IOException {
+        List<Path> checkpoints = checkpoints(directory);
+        if(checkpoints.isEmpty()){
+            return 0;
+        }
+        String name = checkpoints.get(0).getFileName().toString();
+        return Long.parseLong(name.substring("stock-".length(), name.length() - ".checkpoint".length()));
+    }
+
+    /**
+     * Method reads a checkpoint file.
+     *
+     * @param checkpoint Checkpoint file.
+     * @param records Number of movements in the ledger.
+     * @return the stock saved in the checkpoint, or null if the file is damaged or covers movements the ledger does not have.
+     */
+    private static Levels readCheckpoint(Path checkpoint, long records){
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint), 1 << 16))){
+            if(in.readInt() != CHECKPOINT_MAGIC){
+                return null;
+            }
+            long eventCount = in.readLong();
+            int size = in.readInt();
+            if(eventCount > records || size < 0){
+                return null;
+            }
+            LongLongMap stock = new LongLongMap(size * 2 + 16);
+            for(int i = 0; i < size; i++){
+                stock.add(in.readLong(), in.readLong());
+            }
+            return new Levels(stock, eventCount);
+        }catch (IOException e){
+            return null;
+        }
+    }
+
+    /**
+     * Method adds up the change of each item over a range of movements.
+     *
+     * @param channel Ledger file.
+     * @param from First movement.
+     * @param to Movement after the last one.
+     * @return the change of every item with a movement in the range.
+     * @throws IOException if the ledger cannot be read.
+     */
+    private static LongLongMap fold(FileChannel channel, long from, long to) throws IOException {
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, from * RECORD_SIZE, (to - from) * RECORD_SIZE);
+        LongLongMap changes = new LongLongMap(1024);
+        int end = bytes.limit();
+        for(int at = 0; at < end; at += RECORD_SIZE){
+            boolean part = bytes.get(at + 8) == 0;
+            changes.add(key(part, bytes.getInt(at + 12)), bytes.getLong(at + 16));
+        }
+        return changes;
+    }
+
+    /**
+     * @return one number for a part or product, parts use their id and products use negative numbers.
+     */
+    private static long key(boolean part, int id){
+        return part ? id : -1L - id;
+    }
+
+    private static int keyId(long key){
+        return (int) (key >= 0 ? key : -1L - key);
+    }
+
+    /**
+     * Method closes the ledger from the shutdown hook.
+     */
+    private void closeQuietly(){
+        try{
+            close();
+        }catch (IOException e){
+            System.err.println("Could not save the stock ledger: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stock of every part and product rebuilt from the ledger.
+     */
+    public static final class Levels {
+        private final LongLongMap stock;
+        private long eventCount;
+        private long elapsedNanos;
+
+        Levels(LongLongMap stock, long eventCount){
+            this.stock = stock;
+            this.eventCount = eventCount;
+        }
+
+        /**
+         * @param id Id of the part.
+         * @return the stock of the part, 0 if it never had a movement.
+         */
+        public long getPartStock(int id){
+            return stock.get(key(true, id));
+        }
+
+        /**
+         * @param id Id of the product.
+         * @return the stock of the product, 0 if it never had a movement.
+         */
+        public long getProductStock(int id){
+            return stock.get(key(false, id));
+        }
+
+        /**
+         * @return the number of movements replayed, including the ones saved in the checkpoint.
+         */
+        public long getEventCount(){
+            return eventCount;
+        }
+
+        /**
+         * @return the number of parts and products that had a movement.
+         */
+        public int getItemCount(){
+            return stock.size();
+        }
+
+        /**
+         * @return the time the replay took, in milliseconds.
+         */
+        public long getElapsedMillis(){
+            return elapsedNanos / 1_000_000;
+        }
+
+        @Override
+        public String toString(){
+            return "Replayed " + eventCount + " stock movements of " + stock.size() + " items in " + getElapsedMillis() + " ms";
+        }
+    }
+
+    /**
+     * Hash map from long keys to long values that keeps both in arrays, so folding millions of movements creates no objects.
+     */
+    private static final class LongLongMap {
+
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys;
+        private long[] values;
+        private int size;
+
+        LongLongMap(int expected){
+            int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+            keys = new long[capacity];
+            values = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        long get(long key){
+            int mask = keys.length - 1;
+            for(int slot = hash(key) & mask; ; slot = (slot + 1) & mask){
+                if(keys[slot] == key){
+                    return values[slot];
+                }
+                if(keys[slot] == EMPTY){
+                    return 0;
+                }
+            }
+        }
+
+        boolean contains(long key){
+            int mask = keys.length - 1;
+            for(int slot = hash(key) & mask; ; slot = (slot + 1) & mask){
+                if(keys[slot] == key){
+                    return true;
+                }
+                if(keys[slot] == EMPTY){
+                    return false;
+                }
+            }
+        }
+
+        void add(long key, long change){
+            int mask = keys.length - 1;
+            for(int slot = hash(key) & mask; ; slot = (slot + 1) & mask){
+                if(keys[slot] == key){
+                    values[slot] += change;
+                    return;
+                }
+                if(keys[slot] == EMPTY){
+                    keys[slot] = key;
+                    values[slot] = change;
+                    if(++size * 2 > keys.length){
+                        grow();
+                    }
+                    return;
+                }
+            }
+        }
+
+        void addAll(LongLongMap other){
+            for(int i = 0; i < other.keys.length; i++){
+                if(other.keys[i] != EMPTY){
+                    add(other.keys[i], other.values[i]);
+                }
+            }
+        }
+
+        void forEach(Entry action){
+            for(int i = 0; i < keys.length; i++){
+                if(keys[i] != EMPTY){
+                    action.accept(keys[i], values[i]);
+                }
+            }
+        }
+
+        int size(){
+            return size;
+        }
+
+        private void grow(){
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new long[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+            for(int i = 0; i < oldKeys.length; i++){
+                if(oldKeys[i] != EMPTY){
+                    add(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(long key){
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        interface Entry {
+            void accept(long key, long value);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package model;
+
+/**
+ * StockMovement class that describes units of a part or product coming in or going out. Movements are never changed once made.
+ *
+ * @author José L Dávila Montalvo
+ */
+public final class StockMovement {
+
+    /**
+     * Kinds of stock movement.
+     */
+    public enum Type {
+        /**
+         * Units came in, from a supplier or from building a product.
+         */
+        RECEIPT,
+        /**
+         * Units went out, sold or used to build a product.
+         */
+        CONSUMPTION,
+        /**
+         * Stock was set by hand, or the part or product was added or deleted.
+         */
+        ADJUSTMENT
+    }
+
+    /**
+     * Private properties of the movement.
+     */
+    private final long time;
+    private final Type type;
+    private final boolean part;
+    private final int id;
+    private final long change;
+
+    /**
+     * Constructor for a movement.
+     *
+     * @param time Time of the movement in milliseconds since the epoch.
+     * @param type Kind of movement.
+     * @param part True for a part, false for a product.
+     * @param id Id of the part or product.
+     * @param change Units that came in, negative when units went out.
+     */
+    public StockMovement(long time, Type type, boolean part, int id, long change){
+        if(type == null){
+            throw new NullPointerException("Type cannot be null");
+        }
+        this.time = time;
+        this.type = type;
+        this.part = part;
+        this.id = id;
+        this.change = change;
+    }
+
+    /**
+     * @return the time of the movement in milliseconds since the epoch.
+     */
+    public long getTime(){
+        return time;
+    }
+
+    /**
+     * @return the kind of movement.
+     */
+    public Type getType(){
+        return type;
+    }
+
+    /**
+     * @return true for a part, false for a product.
+     */
+    public boolean isPart(){
+        return part;
+    }
+
+    /**
+     * @return the id of the part or product.
+     */
+    public int getId(){
+        return id;
+    }
+
+    /**
+     * @return the units that came in, negative when units went out.
+     */
+    public long getChange(){
+        return change;
+    }
+
+    @Override
+    public String toString(){
+        return type + " " + (part ? "part " : "product ") + id + " " + (change > 0 ? "+" : "") + change;
+    }
+}
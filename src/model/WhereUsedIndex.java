@@ -0,0 +1,103 @@
+package model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WhereUsedIndex class that keeps, for every part, the ids of the products that have the part in their associated parts.
+ * Asking where a part is used, or if it is used at all, does not walk the products.
+ * <p>
+ * The index also keeps the part ids of every product, so when the associated parts of a product change only the parts that were
+ * added or removed are touched. Changes to one product must not run at the same time, the Inventory makes them while the product
+ * is locked. Changes to different products and queries can run at the same time.
+ * </p>
+ *
+ * @author José L Dávila Montalvo
+ */
+public class WhereUsedIndex {
+
+    /**
+     * Ids of the products that use each part, and ids of the parts used by each product.
+     */
+    private final Map<Integer, Set<Integer>> productsByPart = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> partsByProduct = new ConcurrentHashMap<>();
+
+    /**
+     * Method records the associated parts of a product, replacing the parts recorded before.
+     *
+     * @param productId Id of the product.
+     * @param parts Associated parts of the product.
+     */
+    public void set(int productId, Collection<Part> parts){
+        Set<Integer> partIds = new HashSet<>();
+        for(Part part: parts){
+            partIds.add(part.getId());
+        }
+        Set<Integer> previous = partIds.isEmpty() ? partsByProduct.remove(productId) : partsByProduct.put(productId, partIds);
+        if(previous != null){
+            for(Integer partId: previous){
+                if(!partIds.contains(partId)){
+                    unlink(partId, productId);
+                }
+            }
+        }
+        for(Integer partId: partIds){
+            if(previous == null || !previous.contains(partId)){
+                link(partId, productId);
+            }
+        }
+    }
+
+    /**
+     * Method removes a deleted product from the index.
+     *
+     * @param productId Id of the product.
+     */
+    public void remove(int productId){
+        Set<Integer> previous = partsByProduct.remove(productId);
+        if(previous != null){
+            for(Integer partId: previous){
+                unlink(partId, productId);
+            }
+        }
+    }
+
+    /**
+     * @param partId Id of the part.
+     * @return a read only view of the ids of the products that use the part, which follows later changes.
+     */
+    public Set<Integer> productsUsing(int partId){
+        Set<Integer> products = productsByPart.get(partId);
+        return products == null ? Collections.emptySet() : Collections.unmodifiableSet(products);
+    }
+
+    /**
+     * @param partId Id of the part.
+     * @return true if at least one product uses the part.
+     */
+    public boolean isUsed(int partId){
+        return productsByPart.containsKey(partId);
+    }
+
+    private void link(int partId, int productId){
+        productsByPart.compute(partId, (id, products) -> {
+            if(products == null){
+                products = ConcurrentHashMap.newKeySet();
+            }
+            products.add(productId);
+            return products;
+        });
+    }
+
+    private void unlink(int partId, int productId){
+        // the set of a part is dropped when its last product goes, so isUsed only has to look for the part
+        productsByPart.computeIfPresent(partId, (id, products) -> {
+            products.remove(productId);
+            return products.isEmpty() ? null : products;
+        });
+    }
+}